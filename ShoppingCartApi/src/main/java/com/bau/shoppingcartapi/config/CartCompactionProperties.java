@@ -0,0 +1,32 @@
+package com.bau.shoppingcartapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the background job that cleans deleted products out of carts/favorites
+ * and archives abandoned carts (see CartCompactionService).
+ */
+@Data
+@ConfigurationProperties(prefix = "cart.compaction")
+public class CartCompactionProperties {
+
+    private boolean enabled = true;
+
+    // Spring cron expression for when the job runs
+    private String cron = "0 30 3 * * *";
+
+    // Number of users read and updated per round trip
+    private int batchSize = 500;
+
+    // Pause between batches so the job never saturates the cluster
+    private Duration throttle = Duration.ofMillis(200);
+
+    // Carts untouched for longer than this are archived and emptied
+    private Duration idleCartAge = Duration.ofDays(30);
+
+    // Lease on the cluster-wide job lock, extended after every batch; another replica may take over once it runs out
+    private Duration lockLease = Duration.ofMinutes(10);
+}
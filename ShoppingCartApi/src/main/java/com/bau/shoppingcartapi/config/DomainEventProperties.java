@@ -0,0 +1,29 @@
+package com.bau.shoppingcartapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-process domain event bus (see DomainEventBus).
+ */
+@Data
+@ConfigurationProperties(prefix = "events")
+public class DomainEventProperties {
+
+    // Events waiting to be handled; publishers wait up to publishTimeout when it is full
+    private int queueCapacity = 10_000;
+
+    // Maximum number of events handed to the handlers at once
+    private int batchSize = 200;
+
+    // Consumer threads; keep at 1 if handlers rely on events being seen in publish order
+    private int consumers = 1;
+
+    // How long a consumer waits for more events before handling a partial batch
+    private Duration linger = Duration.ofMillis(50);
+
+    // How long a publisher blocks on a full queue before the event is dropped
+    private Duration publishTimeout = Duration.ofMillis(100);
+}
@@ -0,0 +1,139 @@
+package com.bau.shoppingcartapi.config;
+
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoSocketOpenException;
+import com.mongodb.MongoSocketReadTimeoutException;
+import com.mongodb.MongoSocketWriteTimeoutException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.ReadPreference;
+import com.mongodb.event.ClusterDescriptionChangedEvent;
+import com.mongodb.event.ClusterListener;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fails API requests fast while the MongoDB cluster is unreachable, instead of letting every request
+ * thread block for the full server selection / pool wait timeout.
+ *
+ * Opens after app.mongo.circuit-breaker.failure-threshold consecutive connection or timeout failures,
+ * or as soon as the driver reports that no server can serve reads. While open, one request per
+ * open-duration is let through as a probe; any successful command closes the breaker again.
+ * Registered with the driver in MongoConfig and checked per request by MongoCircuitBreakerInterceptor.
+ *
+ * Each failure is counted in one place only: lost connections of commands that were sent come from the driver
+ * (commandFailed), while timeouts waiting for a server or a pooled connection and refused connections, which
+ * happen before any command is sent, come from the interceptor (recordRequestFailure). Socket read/write
+ * timeouts never count: they mean a slow command, not an unreachable cluster.
+ */
+@Slf4j
+@Component
+public class MongoCircuitBreaker implements CommandListener, ClusterListener {
+
+    @Autowired
+    private MongoClientProperties properties;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong retryAt = new AtomicLong();
+    private volatile boolean open;
+
+    public boolean allowRequest() {
+        if (!open || !properties.getCircuitBreaker().isEnabled()) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        long retry = retryAt.get();
+        return now >= retry && retryAt.compareAndSet(retry, now + openDurationMillis());
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAt.get() - System.currentTimeMillis() + 999) / 1000);
+    }
+
+    // Failure that ended an API request; only counted if the driver never saw it as a failed command
+    public void recordRequestFailure(Throwable failure) {
+        if (failedBeforeCommand(failure)) {
+            recordFailure(failure);
+        }
+    }
+
+    private void recordFailure(Throwable failure) {
+        if (consecutiveFailures.incrementAndGet() >= properties.getCircuitBreaker().getFailureThreshold()) {
+            trip("consecutive MongoDB failures, last: " + failure.getMessage());
+        }
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (open) {
+            open = false;
+            log.info("MongoDB circuit breaker closed");
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        recordSuccess();
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        if (connectionLost(event.getThrowable())) {
+            recordFailure(event.getThrowable());
+        }
+    }
+
+    @Override
+    public void clusterDescriptionChanged(ClusterDescriptionChangedEvent event) {
+        boolean wasReadable = event.getPreviousDescription().hasReadableServer(ReadPreference.primaryPreferred());
+        boolean isReadable = event.getNewDescription().hasReadableServer(ReadPreference.primaryPreferred());
+        if (wasReadable && !isReadable) {
+            trip("no reachable MongoDB server");
+        } else if (!wasReadable && isReadable) {
+            recordSuccess();
+        }
+    }
+
+    private void trip(String reason) {
+        retryAt.set(System.currentTimeMillis() + openDurationMillis());
+        if (!open) {
+            open = true;
+            log.warn("MongoDB circuit breaker opened: {}", reason);
+        }
+    }
+
+    private long openDurationMillis() {
+        return properties.getCircuitBreaker().getOpenDuration().toMillis();
+    }
+
+    // Server selection / pool wait timeouts and connection open failures; errors like duplicate keys never count
+    static boolean failedBeforeCommand(Throwable failure) {
+        return hasCause(failure, MongoTimeoutException.class) || hasCause(failure, MongoSocketOpenException.class);
+    }
+
+    // Reset or closed connections; a command that merely outlived the socket timeout says nothing about the cluster
+    static boolean connectionLost(Throwable failure) {
+        return hasCause(failure, MongoSocketException.class)
+                && !hasCause(failure, MongoSocketReadTimeoutException.class)
+                && !hasCause(failure, MongoSocketWriteTimeoutException.class);
+    }
+
+    private static boolean hasCause(Throwable failure, Class<? extends Throwable> type) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,38 @@
+package com.bau.shoppingcartapi.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Rejects API requests with 503 while the MongoCircuitBreaker is open, and feeds it the
+ * server selection / connection pool timeouts that never reach the driver's command listener.
+ * Not applied to endpoints served from memory (see WebConfig).
+ */
+@Component
+public class MongoCircuitBreakerInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private MongoCircuitBreaker circuitBreaker;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (circuitBreaker.allowRequest()) {
+            return true;
+        }
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(circuitBreaker.getRetryAfterSeconds()));
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (ex != null) {
+            circuitBreaker.recordRequestFailure(ex);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.bau.shoppingcartapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MongoDB client tuning applied on top of spring.data.mongodb.uri (see MongoConfig).
+ * The connection string itself, including credentials, comes from the MONGODB_URI environment variable.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.mongo")
+public class MongoClientProperties {
+
+    private Pool pool = new Pool();
+
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    // Maximum time to wait for a reply on an open connection
+    private Duration socketTimeout = Duration.ofSeconds(10);
+
+    // Maximum time to find a suitable server before failing (driver default is 30s)
+    private Duration serverSelectionTimeout = Duration.ofSeconds(5);
+
+    // Wire compressors in order of preference, supported: zstd, snappy (needs snappy-java), zlib
+    private List<String> compressors = new ArrayList<>(List.of("zstd", "zlib"));
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Background background = new Background();
+
+    @Data
+    public static class Pool {
+        private int minSize = 5;
+        private int maxSize = 50;
+
+        // How long a request thread waits for a free connection before failing
+        private Duration maxWaitTime = Duration.ofSeconds(2);
+
+        private Duration maxConnectionIdleTime = Duration.ofMinutes(5);
+        private Duration maxConnectionLifeTime = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+
+        // Consecutive connection/timeout failures that open the breaker
+        private int failureThreshold = 5;
+
+        // How long requests are rejected before one is let through to probe the cluster
+        private Duration openDuration = Duration.ofSeconds(10);
+    }
+
+    // Separate client for index builds and scheduled jobs, whose commands can run far longer than socketTimeout
+    @Data
+    public static class Background {
+        private Duration socketTimeout = Duration.ofHours(1);
+        private int maxPoolSize = 4;
+    }
+}
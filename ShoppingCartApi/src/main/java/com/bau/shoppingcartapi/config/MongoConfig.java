@@ -0,0 +1,97 @@
+package com.bau.shoppingcartapi.config;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.MongoConnectionDetails;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Configuration
+public class MongoConfig {
+
+    // Applies app.mongo.* on top of the connection string and hooks up the circuit breaker.
+    // Reads default to the primary; catalog and review repositories opt into secondaries with @ReadPreference.
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoClientTuning(MongoClientProperties properties,
+                                                                  MongoCircuitBreaker circuitBreaker) {
+        return builder -> builder
+                .applyToConnectionPoolSettings(pool -> pool
+                        .minSize(properties.getPool().getMinSize())
+                        .maxSize(properties.getPool().getMaxSize())
+                        .maxWaitTime(properties.getPool().getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(properties.getPool().getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionLifeTime(properties.getPool().getMaxConnectionLifeTime().toMillis(), TimeUnit.MILLISECONDS))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout(properties.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                        .readTimeout(properties.getSocketTimeout().toMillis(), TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(cluster -> cluster
+                        .serverSelectionTimeout(properties.getServerSelectionTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                        .addClusterListener(circuitBreaker))
+                .compressorList(compressors(properties.getCompressors()))
+                .addCommandListener(circuitBreaker);
+    }
+
+    /**
+     * Client for index builds and the scheduled jobs. Their commands (createIndexes, large bulk writes)
+     * can legitimately run for minutes, so it gets app.mongo.background.socket-timeout instead of the
+     * request-sized socket timeout, its own small pool, and no circuit breaker listeners.
+     * Not a default candidate, so Boot still auto-configures the main client and template.
+     */
+    @Bean(defaultCandidate = false)
+    public MongoClient backgroundMongoClient(MongoConnectionDetails connectionDetails, MongoProperties mongoProperties,
+                                             MongoClientProperties properties) {
+        return MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(connectionDetails.getConnectionString())
+                .uuidRepresentation(mongoProperties.getUuidRepresentation())
+                .applyToConnectionPoolSettings(pool -> pool
+                        .minSize(0)
+                        .maxSize(properties.getBackground().getMaxPoolSize())
+                        .maxConnectionIdleTime(properties.getPool().getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout(properties.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                        .readTimeout(properties.getBackground().getSocketTimeout().toMillis(), TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(cluster -> cluster
+                        .serverSelectionTimeout(properties.getServerSelectionTimeout().toMillis(), TimeUnit.MILLISECONDS))
+                .compressorList(compressors(properties.getCompressors()))
+                .build());
+    }
+
+    // Same database and mapping as the main template, on the background client
+    @Bean(defaultCandidate = false)
+    public MongoTemplate backgroundMongoTemplate(@Qualifier("backgroundMongoClient") MongoClient backgroundMongoClient,
+                                                 MongoDatabaseFactory databaseFactory, MongoConverter converter) {
+        String database = databaseFactory.getMongoDatabase().getName();
+        return new MongoTemplate(new SimpleMongoClientDatabaseFactory(backgroundMongoClient, database), converter);
+    }
+
+    private static List<MongoCompressor> compressors(List<String> names) {
+        return names.stream()
+                .map(name -> switch (name.trim().toLowerCase()) {
+                    case "zstd" -> MongoCompressor.createZstdCompressor();
+                    case "snappy" -> MongoCompressor.createSnappyCompressor();
+                    case "zlib" -> MongoCompressor.createZlibCompressor();
+                    default -> throw new IllegalArgumentException("Unsupported MongoDB compressor: " + name);
+                })
+                .collect(Collectors.toList());
+    }
+
+    // Multi-document transactions (checkout); needs a replica set, which Atlas always is
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory);
+    }
+}
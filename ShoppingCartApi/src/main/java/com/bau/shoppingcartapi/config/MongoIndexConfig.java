@@ -0,0 +1,113 @@
+package com.bau.shoppingcartapi.config;
+
+import com.bau.shoppingcartapi.entities.Order;
+import com.bau.shoppingcartapi.entities.ProductRecommendation;
+import com.bau.shoppingcartapi.entities.User;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the indexes declared with @Indexed / @CompoundIndex on our documents.
+ * Runs in the background once the app is ready, so an unreachable cluster does not fail startup
+ * (which is what spring.data.mongodb.auto-index-creation would do), and retries every RETRY_DELAY
+ * until every document's indexes exist. Until then MongoIndexHealthIndicator reports DOWN, and code
+ * that depends on an index for correctness (checkout's unique idempotency key) calls ensureIndexes first.
+ */
+@Slf4j
+@Configuration
+public class MongoIndexConfig {
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(User.class, Order.class, ProductRecommendation.class);
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    // Index builds on a large collection outlast the request socket timeout (MongoConfig.backgroundMongoClient)
+    @Autowired
+    @Qualifier("backgroundMongoTemplate")
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mongoMappingContext;
+
+    private final Set<Class<?>> ready = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService executor;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexesOnStartup() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mongo-indexes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::ensureAllIndexes);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Makes sure the indexes of a document exist, creating them now if an earlier attempt failed.
+     * Returns false if they could not be created; cheap once they exist.
+     */
+    public boolean ensureIndexes(Class<?> document) {
+        if (ready.contains(document)) {
+            return true;
+        }
+        synchronized (this) {
+            if (ready.contains(document)) {
+                return true;
+            }
+            try {
+                IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+                IndexOperations indexOps = mongoTemplate.indexOps(document);
+                resolver.resolveIndexFor(document).forEach(indexOps::ensureIndex);
+                ready.add(document);
+                log.info("Indexes for {} are in place", document.getSimpleName());
+                return true;
+            } catch (Exception e) {
+                log.warn("Could not ensure indexes for {}, retrying in {}s: {}",
+                        document.getSimpleName(), RETRY_DELAY.toSeconds(), e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    // Documents whose indexes have not been created yet
+    public List<String> getPendingDocuments() {
+        return INDEXED_DOCUMENTS.stream()
+                .filter(document -> !ready.contains(document))
+                .map(Class::getSimpleName)
+                .collect(Collectors.toList());
+    }
+
+    private void ensureAllIndexes() {
+        INDEXED_DOCUMENTS.forEach(this::ensureIndexes);
+        if (!getPendingDocuments().isEmpty()) {
+            executor.schedule(this::ensureAllIndexes, RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
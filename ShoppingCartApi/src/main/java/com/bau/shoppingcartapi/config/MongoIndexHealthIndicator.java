@@ -0,0 +1,28 @@
+package com.bau.shoppingcartapi.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * DOWN until MongoIndexConfig has created every declared index, so an instance whose
+ * unique orders index is missing is taken out of rotation instead of accepting checkouts.
+ */
+@Component
+public class MongoIndexHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private MongoIndexConfig mongoIndexConfig;
+
+    @Override
+    public Health health() {
+        List<String> pending = mongoIndexConfig.getPendingDocuments();
+        if (pending.isEmpty()) {
+            return Health.up().build();
+        }
+        return Health.down().withDetail("pendingIndexes", pending).build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.bau.shoppingcartapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the "frequently added together" recommendations (see RecommendationService).
+ */
+@Data
+@ConfigurationProperties(prefix = "recommendations")
+public class RecommendationProperties {
+
+    // Related products kept per product
+    private int topK = 10;
+
+    // Larger baskets are truncated, pair counting is quadratic in basket size
+    private int maxBasketSize = 50;
+
+    // Users read per round trip by the rebuild job
+    private int batchSize = 1000;
+
+    // Spring cron expression for the full rebuild from users' carts and favorites
+    private String rebuildCron = "0 0 4 * * *";
+
+    // How often instances that did not run the rebuild check product_recommendations for a newer one (ISO-8601, used by @Scheduled)
+    private String reloadInterval = "PT5M";
+
+    // Lease on the cluster-wide rebuild lock, extended while the rebuild makes progress
+    private Duration lockLease = Duration.ofMinutes(10);
+}
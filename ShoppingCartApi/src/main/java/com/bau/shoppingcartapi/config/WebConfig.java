@@ -1,11 +1,17 @@
 package com.bau.shoppingcartapi.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private MongoCircuitBreakerInterceptor mongoCircuitBreakerInterceptor;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -13,4 +19,12 @@ public class WebConfig implements WebMvcConfigurer {
             .allowedMethods("GET", "POST", "PUT", "DELETE")
             .allowedHeaders("*");
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Related products come from the in-memory recommendation index and keep working without Mongo
+        registry.addInterceptor(mongoCircuitBreakerInterceptor)
+                .addPathPatterns("/api/**")
+                .excludePathPatterns("/api/products/*/related");
+    }
 }
@@ -0,0 +1,36 @@
+package com.bau.shoppingcartapi.controllers;
+
+import com.bau.shoppingcartapi.dto.CheckoutDto;
+import com.bau.shoppingcartapi.dto.OrderDto;
+import com.bau.shoppingcartapi.dto.OrderPageDto;
+import com.bau.shoppingcartapi.services.OrderService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/orders")
+public class OrderController {
+
+    @Autowired
+    private OrderService orderService;
+
+    // Safe to retry with the same idempotencyKey, the already placed order is returned
+    @PostMapping("/checkout")
+    public ResponseEntity<OrderDto> checkout(@RequestBody @Valid CheckoutDto checkoutDto) {
+        OrderDto orderDto = orderService.checkout(checkoutDto);
+        return ResponseEntity.status(HttpStatus.CREATED).body(orderDto);
+    }
+
+    // Newest first: pass the returned nextCursor as "before" to get older orders
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<OrderPageDto> getOrderHistory(@PathVariable String userId,
+                                                        @RequestParam(required = false) String before,
+                                                        @RequestParam(defaultValue = "20") int limit) {
+        OrderPageDto orderPage = orderService.getOrderHistory(userId, before, limit);
+        return ResponseEntity.ok(orderPage);
+    }
+}
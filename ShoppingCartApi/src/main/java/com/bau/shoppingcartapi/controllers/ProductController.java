@@ -1,8 +1,10 @@
 package com.bau.shoppingcartapi.controllers;
 
 import com.bau.shoppingcartapi.dto.ProductDto;
+import com.bau.shoppingcartapi.dto.RelatedProductsDto;
 import com.bau.shoppingcartapi.entities.Product;
 import com.bau.shoppingcartapi.services.ProductService;
+import com.bau.shoppingcartapi.services.RecommendationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +21,9 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private RecommendationService recommendationService;
+
     @GetMapping
     public ResponseEntity<List<ProductDto>> getAllProducts() {
         List<ProductDto> productDtos = productService.getAllProducts();
@@ -30,4 +35,11 @@ public class ProductController {
         ProductDto productDto = productService.getProductById(id);
         return ResponseEntity.ok(productDto);
     }
+
+    // "Frequently added together", served from memory
+    @GetMapping("/{id}/related")
+    public ResponseEntity<RelatedProductsDto> getRelatedProducts(@PathVariable String id) {
+        RelatedProductsDto relatedProductsDto = recommendationService.getRelatedProducts(id);
+        return ResponseEntity.ok(relatedProductsDto);
+    }
 }
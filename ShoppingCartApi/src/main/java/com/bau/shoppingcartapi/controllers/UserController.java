@@ -3,14 +3,20 @@ package com.bau.shoppingcartapi.controllers;
 import com.bau.shoppingcartapi.dto.AddToCartOrFavDto;
 import com.bau.shoppingcartapi.dto.CreateUserDto;
 import com.bau.shoppingcartapi.dto.UserDto;
+import com.bau.shoppingcartapi.dto.UserPageDto;
 import com.bau.shoppingcartapi.services.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 @CrossOrigin(origins = "*")
 @RestController
@@ -27,10 +33,26 @@ public class UserController {
         return ResponseEntity.ok(userDto);
     }
 
+    // Admin listing, paged by (email, id): pass the returned nextCursor as "after" to get the next page
     @GetMapping
-    public ResponseEntity<List<UserDto>> getAllUsers() {
-        List<UserDto> userDto = userService.getAllUsers();
-        return ResponseEntity.ok(userDto);
+    public ResponseEntity<UserPageDto> getAllUsers(@RequestParam(required = false) String email,
+                                                   @RequestParam(required = false) String after,
+                                                   @RequestParam(defaultValue = "50") int limit) {
+        UserPageDto userPage = userService.getUsersPage(email, after, limit);
+        return ResponseEntity.ok(userPage);
+    }
+
+    // Streamed on an async thread, bounded by spring.mvc.async.request-timeout rather than the 30s container default
+    @GetMapping(value = "/export", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            userService.exportUsersCsv(writer);
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.csv\"")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
     }
 
     @PostMapping("/create")
@@ -0,0 +1,18 @@
+package com.bau.shoppingcartapi.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutDto {
+    @NotBlank(message = "User ID is required")
+    private String userId;
+
+    // Generated by the client once per checkout and reused on retries
+    @NotBlank(message = "Idempotency key is required")
+    private String idempotencyKey;
+}
@@ -0,0 +1,22 @@
+package com.bau.shoppingcartapi.dto;
+
+import com.bau.shoppingcartapi.entities.OrderItem;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderDto {
+    private String id;
+    private String userId;
+    private List<OrderItem> items;
+    private Double total;
+    private Instant createdAt;
+}
@@ -0,0 +1,18 @@
+package com.bau.shoppingcartapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderPageDto {
+    private List<OrderDto> orders;
+    // Id of the oldest order in this page, pass it back as "before" to get the next page (null when done)
+    private String nextCursor;
+}
@@ -0,0 +1,18 @@
+package com.bau.shoppingcartapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RelatedProductsDto {
+    private String productId;
+    // Ids of the products most often in the same cart / favorites, best first
+    private List<String> relatedProductIds;
+}
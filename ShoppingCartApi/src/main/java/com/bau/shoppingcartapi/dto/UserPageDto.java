@@ -0,0 +1,18 @@
+package com.bau.shoppingcartapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserPageDto {
+    private List<UserSummaryDto> users;
+    // Opaque cursor for the (email, id) of the last user in this page, pass it back as "after" to get the next page (null when done)
+    private String nextCursor;
+}
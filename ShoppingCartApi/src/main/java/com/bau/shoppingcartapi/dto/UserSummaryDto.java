@@ -0,0 +1,17 @@
+package com.bau.shoppingcartapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserSummaryDto {
+    private String id;
+    private String email;
+    private int cartSize;
+    private int favoritesSize;
+}
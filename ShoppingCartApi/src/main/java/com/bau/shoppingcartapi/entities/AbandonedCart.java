@@ -0,0 +1,30 @@
+package com.bau.shoppingcartapi.entities;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.time.Instant;
+import java.util.List;
+
+@Document(collection = "abandoned_carts")  // MongoDB collection
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AbandonedCart {
+
+    @Id
+    private String id;  // userId + ":" + cartUpdatedAt, so re-running the job does not archive the same cart twice
+
+    private String userId;
+
+    // Products that were in the cart when it was archived
+    @Field(targetType = FieldType.STRING)
+    private List<String> cart;
+
+    private Instant cartUpdatedAt;
+    private Instant archivedAt;
+}
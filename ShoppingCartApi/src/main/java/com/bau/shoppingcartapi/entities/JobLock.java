@@ -0,0 +1,29 @@
+package com.bau.shoppingcartapi.entities;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "job_locks")  // MongoDB collection
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobLock {
+
+    @Id
+    private String id;  // Job name
+
+    // Instance holding the lock, see JobLockService
+    private String lockedBy;
+
+    private Instant lockedAt;
+
+    // Lease end: after this any instance may take the lock, even if the holder never released it
+    private Instant lockedUntil;
+
+    // Start of the last run that finished completely, set by the holder (JobLockService.markCompleted)
+    private Instant lastCompletedAt;
+}
@@ -0,0 +1,36 @@
+package com.bau.shoppingcartapi.entities;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+@Document(collection = "orders")  // MongoDB collection
+@CompoundIndexes({
+        // One order per checkout attempt: a retried checkout finds the order it already placed
+        @CompoundIndex(name = "user_idempotency_key", def = "{'userId': 1, 'idempotencyKey': 1}", unique = true),
+        // Order history, newest first, paged by _id
+        @CompoundIndex(name = "user_history", def = "{'userId': 1, '_id': -1}")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Order {
+
+    @Id
+    private String id;  // MongoDB automatically generates the ID
+
+    private String userId;
+    private String idempotencyKey;
+
+    // Products with the name and price they had at checkout
+    private List<OrderItem> items;
+
+    private Double total;
+    private Instant createdAt;
+}
@@ -0,0 +1,16 @@
+package com.bau.shoppingcartapi.entities;
+
+import lombok.*;
+
+// Line of an Order, embedded in the order document
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderItem {
+
+    private String productId;
+    private String name;
+    private Double unitPrice;  // Price snapshot taken at checkout
+    private int quantity;
+}
@@ -0,0 +1,31 @@
+package com.bau.shoppingcartapi.entities;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+// Persisted top-K of the in-memory co-occurrence index, written by the nightly rebuild and loaded by every instance.
+// Each rebuild writes a new generation; instances only load the one the job lock marks as completed.
+@Document(collection = "product_recommendations")  // MongoDB collection
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductRecommendation {
+
+    @Id
+    private String id;
+
+    private String productId;
+
+    // Best first
+    private List<RelatedProduct> related;
+
+    // Start of the rebuild that wrote it (the generation)
+    @Indexed
+    private Instant rebuiltAt;
+}
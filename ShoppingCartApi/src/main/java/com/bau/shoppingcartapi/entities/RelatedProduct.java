@@ -0,0 +1,14 @@
+package com.bau.shoppingcartapi.entities;
+
+import lombok.*;
+
+// Entry of ProductRecommendation.related, embedded in the recommendation document
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RelatedProduct {
+
+    private String productId;
+    private int score;  // Number of carts / favorites lists holding both products
+}
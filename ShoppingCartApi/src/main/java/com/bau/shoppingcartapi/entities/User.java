@@ -2,14 +2,19 @@ package com.bau.shoppingcartapi.entities;
 
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import lombok.*;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.mapping.FieldType;
 
+import java.time.Instant;
 import java.util.List;
 
 @Document(collection = "users")  // MongoDB collection
+// Backs the exact lookups in findByEmail and the prefix search / (email, _id) cursor of the admin listing
+@CompoundIndex(name = "email_id", def = "{'email': 1, '_id': 1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,13 +27,18 @@ public class User {
     private String email;
 
     // Favorites (products user liked)
+    @Indexed
     @Field(targetType = FieldType.STRING)
     private List<String> favorites;
 
-    // Cart (products user added to cart)
+    // Cart (products user added to cart), indexed so a product deletion can find the carts that hold it
+    @Indexed
     @Field(targetType = FieldType.STRING)
     private List<String> cart;
 
+    // Last time the cart was changed, used to archive abandoned carts
+    private Instant cartUpdatedAt;
+
     // Reviews written by the user
     @Field(targetType = FieldType.STRING)
     private List<String> reviews;
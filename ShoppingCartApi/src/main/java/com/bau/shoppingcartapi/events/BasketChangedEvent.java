@@ -0,0 +1,28 @@
+package com.bau.shoppingcartapi.events;
+
+import java.util.List;
+
+/**
+ * A change to a user's cart or favorites. Together they make up the "basket" that recommendations
+ * count co-occurrence over, so both lists are carried as they were saved after the change
+ * (favorites is null when the publisher did not read them, as in checkout).
+ */
+public interface BasketChangedEvent extends DomainEvent {
+
+    enum ChangeType {
+        ADDED,
+        REMOVED,
+        CLEARED
+    }
+
+    String userId();
+
+    // null when the whole list was cleared
+    String productId();
+
+    ChangeType changeType();
+
+    List<String> cart();
+
+    List<String> favorites();
+}
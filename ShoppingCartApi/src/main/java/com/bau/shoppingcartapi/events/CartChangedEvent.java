@@ -0,0 +1,11 @@
+package com.bau.shoppingcartapi.events;
+
+import java.util.List;
+
+/**
+ * A user's cart changed. productId is null when the whole cart was cleared,
+ * cart is the cart as it was saved after the change.
+ */
+public record CartChangedEvent(String userId, String productId, ChangeType changeType, List<String> cart,
+                               List<String> favorites) implements BasketChangedEvent {
+}
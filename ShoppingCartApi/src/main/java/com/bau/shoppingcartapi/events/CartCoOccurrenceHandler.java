@@ -0,0 +1,37 @@
+package com.bau.shoppingcartapi.events;
+
+import com.bau.shoppingcartapi.services.RecommendationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Feeds cart and favorites additions into the co-occurrence index and drops deleted products from it.
+ */
+@Component
+public class CartCoOccurrenceHandler implements DomainEventHandler {
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Override
+    public void handle(List<DomainEvent> events) {
+        List<BasketChangedEvent> basketChanges = events.stream()
+                .filter(BasketChangedEvent.class::isInstance)
+                .map(BasketChangedEvent.class::cast)
+                .collect(Collectors.toList());
+        if (!basketChanges.isEmpty()) {
+            recommendationService.recordBasketAdditions(basketChanges);
+        }
+
+        List<String> deletedIds = events.stream()
+                .filter(ProductDeletedEvent.class::isInstance)
+                .map(event -> ((ProductDeletedEvent) event).productId())
+                .collect(Collectors.toList());
+        if (!deletedIds.isEmpty()) {
+            recommendationService.removeProducts(deletedIds);
+        }
+    }
+}
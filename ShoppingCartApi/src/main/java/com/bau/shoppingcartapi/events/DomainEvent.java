@@ -0,0 +1,8 @@
+package com.bau.shoppingcartapi.events;
+
+/**
+ * Something that happened in the domain which other parts of the app react to asynchronously.
+ * Published through DomainEventBus and handed to every DomainEventHandler in batches.
+ */
+public interface DomainEvent {
+}
@@ -0,0 +1,128 @@
+package com.bau.shoppingcartapi.events;
+
+import com.bau.shoppingcartapi.config.DomainEventProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process async event bus. Request threads only enqueue events into a bounded queue;
+ * consumer threads drain it in batches and hand each batch to every DomainEventHandler,
+ * so cart cleanup, aggregate updates and recommendation updates happen off the request thread.
+ *
+ * Events are kept in memory only. If the queue stays full the event is dropped and counted in
+ * events.dropped; the cart compaction job is the backstop for dropped product deletions.
+ */
+@Slf4j
+@Component
+public class DomainEventBus {
+
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    @Autowired
+    private DomainEventProperties properties;
+
+    @Autowired
+    private List<DomainEventHandler> handlers;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private BlockingQueue<DomainEvent> queue;
+    private ExecutorService consumers;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        meterRegistry.gaugeCollectionSize("events.queue.size", Tags.empty(), queue);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        consumers = Executors.newFixedThreadPool(properties.getConsumers(), runnable -> {
+            Thread thread = new Thread(runnable, "domain-events-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < properties.getConsumers(); i++) {
+            consumers.submit(this::consume);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Consumers keep draining until the queue is empty, then exit
+        running = false;
+        consumers.shutdown();
+        if (!consumers.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("Domain event consumers did not finish, {} events not handled", queue.size());
+            consumers.shutdownNow();
+        }
+    }
+
+    public void publish(DomainEvent event) {
+        try {
+            if (queue.offer(event, properties.getPublishTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            log.warn("Domain event queue is full, dropping {}", event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while publishing, dropping {}", event);
+        }
+        meterRegistry.counter("events.dropped").increment();
+    }
+
+    private void consume() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        List<DomainEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                DomainEvent first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - batch.size());
+                if (batch.size() < batchSize && running && !properties.getLinger().isZero()) {
+                    Thread.sleep(properties.getLinger().toMillis());
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                dispatch(List.copyOf(batch));
+            } catch (InterruptedException e) {
+                if (!batch.isEmpty()) {
+                    dispatch(List.copyOf(batch));
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void dispatch(List<DomainEvent> batch) {
+        for (DomainEventHandler handler : handlers) {
+            try {
+                handler.handle(batch);
+            } catch (Exception e) {
+                meterRegistry.counter("events.handler.failures", "handler", handler.getClass().getSimpleName()).increment();
+                log.error("{} failed on a batch of {} events", handler.getClass().getSimpleName(), batch.size(), e);
+            }
+        }
+        meterRegistry.counter("events.handled").increment(batch.size());
+    }
+}
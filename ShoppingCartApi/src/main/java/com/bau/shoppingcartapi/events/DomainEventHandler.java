@@ -0,0 +1,12 @@
+package com.bau.shoppingcartapi.events;
+
+import java.util.List;
+
+/**
+ * Consumer of domain events. Every handler bean receives every batch and picks out the event types it cares about,
+ * so implementations should do their work with one bulk operation per batch rather than one per event.
+ */
+public interface DomainEventHandler {
+
+    void handle(List<DomainEvent> events);
+}
@@ -0,0 +1,11 @@
+package com.bau.shoppingcartapi.events;
+
+import java.util.List;
+
+/**
+ * A user's favorites changed. productId is null when all favorites were cleared,
+ * favorites is the list as it was saved after the change.
+ */
+public record FavoritesChangedEvent(String userId, String productId, ChangeType changeType, List<String> cart,
+                                    List<String> favorites) implements BasketChangedEvent {
+}
@@ -0,0 +1,41 @@
+package com.bau.shoppingcartapi.events;
+
+import com.bau.shoppingcartapi.entities.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Removes deleted products from every cart and favorites list with a single $pullAll per batch.
+ * The multikey indexes on users.cart and users.favorites keep this from scanning the whole collection.
+ */
+@Component
+public class ProductCartCleanupHandler implements DomainEventHandler {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void handle(List<DomainEvent> events) {
+        Set<String> deletedIds = events.stream()
+                .filter(ProductDeletedEvent.class::isInstance)
+                .map(event -> ((ProductDeletedEvent) event).productId())
+                .collect(Collectors.toSet());
+        if (deletedIds.isEmpty()) {
+            return;
+        }
+
+        Query referencing = new Query(new Criteria().orOperator(
+                Criteria.where("cart").in(deletedIds),
+                Criteria.where("favorites").in(deletedIds)));
+        Object[] ids = deletedIds.toArray();
+        mongoTemplate.updateMulti(referencing, new Update().pullAll("cart", ids).pullAll("favorites", ids), User.class);
+    }
+}
@@ -0,0 +1,4 @@
+package com.bau.shoppingcartapi.events;
+
+public record ProductCreatedEvent(String productId) implements DomainEvent {
+}
@@ -0,0 +1,4 @@
+package com.bau.shoppingcartapi.events;
+
+public record ProductDeletedEvent(String productId) implements DomainEvent {
+}
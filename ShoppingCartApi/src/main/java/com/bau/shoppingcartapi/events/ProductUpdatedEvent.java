@@ -0,0 +1,4 @@
+package com.bau.shoppingcartapi.events;
+
+public record ProductUpdatedEvent(String productId, Double oldPrice, Double newPrice) implements DomainEvent {
+}
@@ -0,0 +1,47 @@
+package com.bau.shoppingcartapi.events;
+
+import com.bau.shoppingcartapi.entities.Product;
+import com.bau.shoppingcartapi.entities.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps Product.reviews and User.reviews in step with the reviews collection.
+ * One unordered bulk write per collection per batch; $addToSet makes replays harmless.
+ */
+@Component
+public class ReviewAggregateHandler implements DomainEventHandler {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void handle(List<DomainEvent> events) {
+        List<ReviewCreatedEvent> created = events.stream()
+                .filter(ReviewCreatedEvent.class::isInstance)
+                .map(ReviewCreatedEvent.class::cast)
+                .collect(Collectors.toList());
+        if (created.isEmpty()) {
+            return;
+        }
+
+        BulkOperations productOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        BulkOperations userOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        for (ReviewCreatedEvent event : created) {
+            productOps.updateOne(new Query(Criteria.where("id").is(event.productId())),
+                    new Update().addToSet("reviews", event.reviewId()));
+            userOps.updateOne(new Query(Criteria.where("id").is(event.userId())),
+                    new Update().addToSet("reviews", event.reviewId()));
+        }
+        productOps.execute();
+        userOps.execute();
+    }
+}
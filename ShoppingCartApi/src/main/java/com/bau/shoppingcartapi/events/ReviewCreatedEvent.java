@@ -0,0 +1,4 @@
+package com.bau.shoppingcartapi.events;
+
+public record ReviewCreatedEvent(String reviewId, String productId, String userId) implements DomainEvent {
+}
@@ -0,0 +1,220 @@
+package com.bau.shoppingcartapi.recommendations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory "frequently added together" index: how often two products appear in the same cart/favorites.
+ *
+ * Product ids are mapped to dense ints once; each product keeps an IntIntCounter of neighbour -> count
+ * and a precomputed int[] of its top-K neighbours, so related() is a map lookup plus an array copy under a read lock.
+ * Writes only mark products dirty; call refresh() after a batch of writes to recompute their top-K.
+ */
+public class CoOccurrenceIndex {
+
+    private final int topK;
+
+    private final Map<String, Integer> indexByProduct = new HashMap<>();
+    private final List<String> productIds = new ArrayList<>();
+    private final List<IntIntCounter> neighbours = new ArrayList<>();
+    private final List<int[]> topRelated = new ArrayList<>();
+
+    private final BitSet removed = new BitSet();
+    private final BitSet dirty = new BitSet();
+    private final BitSet changedSinceDrain = new BitSet();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CoOccurrenceIndex(int topK) {
+        this.topK = topK;
+    }
+
+    // Counts every distinct pair of products in the basket once
+    public void addBasket(Collection<String> basket) {
+        lock.writeLock().lock();
+        try {
+            int[] ids = distinctIndexes(basket);
+            for (int i = 0; i < ids.length; i++) {
+                for (int j = i + 1; j < ids.length; j++) {
+                    increment(ids[i], ids[j], 1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Counts the pairs between a product just added and the rest of the basket it was added to
+    public void addToBasket(String productId, Collection<String> basket) {
+        lock.writeLock().lock();
+        try {
+            int added = indexOf(productId);
+            for (int other : distinctIndexes(basket)) {
+                if (other != added) {
+                    increment(added, other, 1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Restores a persisted score, keeping the higher count if the pair is already known
+    public void seed(String productId, String relatedId, int score) {
+        lock.writeLock().lock();
+        try {
+            int a = indexOf(productId);
+            int b = indexOf(relatedId);
+            if (a != b) {
+                neighbours.get(a).max(b, score);
+                neighbours.get(b).max(a, score);
+                dirty.set(a);
+                dirty.set(b);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Stops recommending a product (e.g. deleted); products that listed it get their top-K recomputed
+    public void remove(String productId) {
+        lock.writeLock().lock();
+        try {
+            Integer index = indexByProduct.get(productId);
+            if (index == null) {
+                return;
+            }
+            removed.set(index);
+            dirty.set(index);
+            neighbours.get(index).forEach((neighbour, count) -> dirty.set(neighbour));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void refresh() {
+        lock.writeLock().lock();
+        try {
+            for (int index = dirty.nextSetBit(0); index >= 0; index = dirty.nextSetBit(index + 1)) {
+                topRelated.set(index, removed.get(index) ? new int[0] : computeTopRelated(index));
+                changedSinceDrain.set(index);
+            }
+            dirty.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> related(String productId) {
+        lock.readLock().lock();
+        try {
+            Integer index = indexByProduct.get(productId);
+            if (index == null) {
+                return List.of();
+            }
+            int[] top = topRelated.get(index);
+            List<String> related = new ArrayList<>(top.length);
+            for (int neighbour : top) {
+                related.add(productIds.get(neighbour));
+            }
+            return related;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Top-K related products with their co-occurrence counts, best first
+    public Map<String, Integer> relatedWithScores(String productId) {
+        lock.readLock().lock();
+        try {
+            Integer index = indexByProduct.get(productId);
+            if (index == null) {
+                return Map.of();
+            }
+            Map<String, Integer> related = new LinkedHashMap<>();
+            for (int neighbour : topRelated.get(index)) {
+                related.put(productIds.get(neighbour), neighbours.get(index).get(neighbour));
+            }
+            return related;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Products whose top-K changed since the last call
+    public List<String> drainChanged() {
+        lock.writeLock().lock();
+        try {
+            List<String> changed = new ArrayList<>(changedSinceDrain.cardinality());
+            for (int index = changedSinceDrain.nextSetBit(0); index >= 0; index = changedSinceDrain.nextSetBit(index + 1)) {
+                changed.add(productIds.get(index));
+            }
+            changedSinceDrain.clear();
+            return changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return productIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void increment(int a, int b, int delta) {
+        neighbours.get(a).add(b, delta);
+        neighbours.get(b).add(a, delta);
+        dirty.set(a);
+        dirty.set(b);
+    }
+
+    private int[] computeTopRelated(int index) {
+        // Pack count (high bits) and neighbour (low bits) into one long so a plain sort ranks them
+        IntIntCounter counts = neighbours.get(index);
+        long[] packed = new long[counts.size()];
+        int[] size = {0};
+        counts.forEach((neighbour, count) -> {
+            if (!removed.get(neighbour) && count > 0) {
+                packed[size[0]++] = (long) count << 32 | neighbour;
+            }
+        });
+        Arrays.sort(packed, 0, size[0]);
+
+        int[] top = new int[Math.min(topK, size[0])];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = (int) packed[size[0] - 1 - i];
+        }
+        return top;
+    }
+
+    private int[] distinctIndexes(Collection<String> basket) {
+        return basket.stream()
+                .distinct()
+                .mapToInt(this::indexOf)
+                .toArray();
+    }
+
+    private int indexOf(String productId) {
+        Integer index = indexByProduct.get(productId);
+        if (index != null) {
+            return index;
+        }
+        int newIndex = productIds.size();
+        indexByProduct.put(productId, newIndex);
+        productIds.add(productId);
+        neighbours.add(new IntIntCounter());
+        topRelated.add(new int[0]);
+        return newIndex;
+    }
+}
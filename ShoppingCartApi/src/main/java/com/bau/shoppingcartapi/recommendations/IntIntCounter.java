@@ -0,0 +1,95 @@
+package com.bau.shoppingcartapi.recommendations;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing int -> int map for non-negative keys, stored in two int arrays (no boxing).
+ * Not thread-safe; CoOccurrenceIndex guards it with its lock.
+ */
+public final class IntIntCounter {
+
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIntCounter() {
+        this(4);
+    }
+
+    public IntIntCounter(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public void add(int key, int delta) {
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            values[slot] += delta;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    // Raises the value of key to at least value
+    public void max(int key, int value) {
+        int current = get(key);
+        if (value > current) {
+            add(key, value - current);
+        }
+    }
+
+    public int get(int key) {
+        int slot = slot(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    // Slot holding key, or the empty slot where it would go (linear probing)
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int hash = key * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
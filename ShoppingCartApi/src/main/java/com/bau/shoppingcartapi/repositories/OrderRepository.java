@@ -0,0 +1,16 @@
+package com.bau.shoppingcartapi.repositories;
+
+import com.bau.shoppingcartapi.entities.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderRepository extends MongoRepository<Order, String> {
+    Optional<Order> findByUserIdAndIdempotencyKey(String userId, String idempotencyKey);
+    List<Order> findByUserIdOrderByIdDesc(String userId, Pageable pageable);
+    List<Order> findByUserIdAndIdLessThanOrderByIdDesc(String userId, String id, Pageable pageable);
+}
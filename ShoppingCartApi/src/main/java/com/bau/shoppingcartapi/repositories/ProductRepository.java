@@ -2,13 +2,21 @@ package com.bau.shoppingcartapi.repositories;
 
 import com.bau.shoppingcartapi.entities.Product;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.ReadPreference;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
+// Catalog queries may be served by secondaries. findById stays on the primary because
+// updateProduct does read-modify-write with it
 @Repository
 public interface ProductRepository extends MongoRepository<Product, String> {
+    @ReadPreference("secondaryPreferred")
+    List<Product> findAll();
+    @ReadPreference("secondaryPreferred")
     List<Product> findByCategory(String category);
+    @ReadPreference("secondaryPreferred")
     List<Product> findByNameContainingIgnoreCase(String name);
+    @ReadPreference("secondaryPreferred")
     List<Product> findByPriceLessThanEqual(Double price);
 }
@@ -2,10 +2,13 @@ package com.bau.shoppingcartapi.repositories;
 
 import com.bau.shoppingcartapi.entities.Review;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.ReadPreference;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
+// Reviews are read-mostly and a short replication lag is acceptable, so reads may go to secondaries
+@ReadPreference("secondaryPreferred")
 @Repository
 public interface ReviewRepository extends MongoRepository<Review, String> {
     List<Review> findByProductId(String productId);
@@ -0,0 +1,260 @@
+package com.bau.shoppingcartapi.services;
+
+import com.bau.shoppingcartapi.config.CartCompactionProperties;
+import com.bau.shoppingcartapi.entities.AbandonedCart;
+import com.bau.shoppingcartapi.entities.Product;
+import com.bau.shoppingcartapi.entities.User;
+import com.mongodb.ReadPreference;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Background job that keeps the users collection tidy:
+ * - pulls ids of products that no longer exist out of carts and favorites
+ * - archives carts that have been idle longer than cart.compaction.idle-cart-age into abandoned_carts and empties them
+ *
+ * Users are read from a single _id-ordered cursor (secondary preferred) in batches of cart.compaction.batch-size,
+ * each batch costs one product lookup, at most two bulk writes plus one findAndModify per idle cart, and the job
+ * sleeps cart.compaction.throttle
+ * between batches so it can run against a large collection without spiking the primary.
+ * Every replica schedules it, but the "cart-compaction" job lock lets only one of them run it at a time.
+ */
+@Slf4j
+@Service
+public class CartCompactionService {
+
+    private static final int PROGRESS_LOG_EVERY_BATCHES = 20;
+
+    static final String LOCK_NAME = "cart-compaction";
+
+    // Long scans and bulk writes; the request socket timeout would cut them off (MongoConfig.backgroundMongoClient)
+    @Autowired
+    @Qualifier("backgroundMongoTemplate")
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CartCompactionProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JobLockService jobLockService;
+
+    @Scheduled(cron = "${cart.compaction.cron}")
+    public void scheduledCompaction() {
+        if (properties.isEnabled()) {
+            compact();
+        }
+    }
+
+    public void compact() {
+        if (!jobLockService.tryLock(LOCK_NAME, properties.getLockLease())) {
+            log.info("Cart compaction is already running, skipping this run");
+            return;
+        }
+        long startedAt = System.nanoTime();
+        RunStats stats = new RunStats();
+        try {
+            int batchSize = Math.max(1, properties.getBatchSize());
+            Instant idleCutoff = Instant.now().minus(properties.getIdleCartAge());
+
+            Query query = new Query(new Criteria().orOperator(
+                    Criteria.where("cart.0").exists(true),
+                    Criteria.where("favorites.0").exists(true)))
+                    .with(Sort.by(Sort.Direction.ASC, "id"))
+                    .cursorBatchSize(batchSize);
+            query.fields().include("cart", "favorites", "cartUpdatedAt");
+            query.withReadPreference(ReadPreference.secondaryPreferred());
+
+            try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+                Iterator<User> iterator = users.iterator();
+                List<User> batch = new ArrayList<>(batchSize);
+                while (iterator.hasNext()) {
+                    batch.add(iterator.next());
+                    if (batch.size() == batchSize || !iterator.hasNext()) {
+                        compactBatch(batch, idleCutoff, stats);
+                        batch.clear();
+                        if (stats.batches % PROGRESS_LOG_EVERY_BATCHES == 0) {
+                            log.info("Cart compaction progress: {} users scanned ({} users/s)",
+                                    stats.users, stats.usersPerSecond(startedAt));
+                        }
+                        if (!jobLockService.extend(LOCK_NAME, properties.getLockLease())) {
+                            log.warn("Cart compaction lost its job lock after {} users, stopping", stats.users);
+                            break;
+                        }
+                        if (iterator.hasNext() && !throttle()) {
+                            log.warn("Cart compaction interrupted after {} users", stats.users);
+                            break;
+                        }
+                    }
+                }
+            }
+        } finally {
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+            meterRegistry.timer("cart.compaction.duration").record(elapsed);
+            log.info("Cart compaction finished in {} ms: {} users scanned ({} users/s), {} dangling product ids removed, {} carts archived",
+                    elapsed.toMillis(), stats.users, stats.usersPerSecond(startedAt), stats.danglingIds, stats.archivedCarts);
+            jobLockService.unlock(LOCK_NAME);
+        }
+    }
+
+    private void compactBatch(List<User> batch, Instant idleCutoff, RunStats stats) {
+        Set<String> referenced = new HashSet<>();
+        for (User user : batch) {
+            addAll(referenced, user.getCart());
+            addAll(referenced, user.getFavorites());
+        }
+        Set<String> deleted = findDeletedProducts(referenced);
+
+        Instant now = Instant.now();
+        BulkOperations userOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        BulkOperations archiveOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AbandonedCart.class);
+        int userOpCount = 0;
+        long danglingIds = 0;
+
+        if (!deleted.isEmpty()) {
+            List<String> userIds = batch.stream().map(User::getId).collect(Collectors.toList());
+            Query withDeleted = new Query(Criteria.where("id").in(userIds).orOperator(
+                    Criteria.where("cart").in(deleted),
+                    Criteria.where("favorites").in(deleted)));
+            Object[] deletedIds = deleted.toArray();
+            userOps.updateMulti(withDeleted, new Update().pullAll("cart", deletedIds).pullAll("favorites", deletedIds));
+            userOpCount++;
+            for (User user : batch) {
+                danglingIds += countIn(user.getCart(), deleted) + countIn(user.getFavorites(), deleted);
+            }
+        }
+
+        List<User> idleCarts = new ArrayList<>();
+        for (User user : batch) {
+            if (user.getCart() == null || user.getCart().isEmpty()) {
+                continue;
+            }
+            if (user.getCartUpdatedAt() == null) {
+                // Carts saved before cartUpdatedAt existed start their idle clock now
+                Query untracked = new Query(Criteria.where("id").is(user.getId()).and("cartUpdatedAt").exists(false));
+                userOps.updateOne(untracked, new Update().set("cartUpdatedAt", now));
+                userOpCount++;
+            } else if (user.getCartUpdatedAt().isBefore(idleCutoff)) {
+                idleCarts.add(user);
+            }
+        }
+        if (userOpCount > 0) {
+            userOps.execute();
+        }
+
+        // The batch was read from a secondary, so empty each idle cart on the primary first, only if the user has
+        // not touched it since, and archive exactly the cart that was emptied
+        List<String> archivedUserIds = new ArrayList<>();
+        for (User idle : idleCarts) {
+            Query stillIdle = new Query(Criteria.where("id").is(idle.getId())
+                    .and("cartUpdatedAt").is(idle.getCartUpdatedAt())
+                    .and("cart.0").exists(true));
+            stillIdle.fields().include("cart", "cartUpdatedAt");
+            User cleared = mongoTemplate.findAndModify(stillIdle,
+                    new Update().set("cart", new ArrayList<>()).unset("cartUpdatedAt"),
+                    FindAndModifyOptions.options().returnNew(false), User.class);
+            if (cleared == null) {
+                continue;
+            }
+            List<String> liveCart = cleared.getCart().stream()
+                    .filter(productId -> !deleted.contains(productId))
+                    .collect(Collectors.toList());
+            AbandonedCart abandonedCart = AbandonedCart.builder()
+                    .id(cleared.getId() + ":" + cleared.getCartUpdatedAt().toEpochMilli())
+                    .userId(cleared.getId())
+                    .cart(liveCart)
+                    .cartUpdatedAt(cleared.getCartUpdatedAt())
+                    .archivedAt(now)
+                    .build();
+            archiveOps.replaceOne(new Query(Criteria.where("id").is(abandonedCart.getId())),
+                    abandonedCart, FindAndReplaceOptions.options().upsert());
+            archivedUserIds.add(cleared.getId());
+        }
+        if (!archivedUserIds.isEmpty()) {
+            try {
+                archiveOps.execute();
+            } catch (RuntimeException e) {
+                log.error("Emptied idle carts of users {} but could not archive them", archivedUserIds, e);
+                throw e;
+            }
+        }
+        int archived = archivedUserIds.size();
+
+        stats.batches++;
+        stats.users += batch.size();
+        stats.danglingIds += danglingIds;
+        stats.archivedCarts += archived;
+        meterRegistry.counter("cart.compaction.users.scanned").increment(batch.size());
+        meterRegistry.counter("cart.compaction.dangling.ids.removed").increment(danglingIds);
+        meterRegistry.counter("cart.compaction.carts.archived").increment(archived);
+    }
+
+    // Read from the primary: a product created moments ago may not have reached a secondary yet
+    private Set<String> findDeletedProducts(Set<String> productIds) {
+        if (productIds.isEmpty()) {
+            return Set.of();
+        }
+        Query query = new Query(Criteria.where("id").in(productIds));
+        query.fields().include("id");
+        Set<String> deleted = new HashSet<>(productIds);
+        mongoTemplate.find(query, Product.class).forEach(product -> deleted.remove(product.getId()));
+        return deleted;
+    }
+
+    private boolean throttle() {
+        try {
+            Thread.sleep(properties.getThrottle().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void addAll(Set<String> target, Collection<String> source) {
+        if (source != null) {
+            target.addAll(source);
+        }
+    }
+
+    private static long countIn(List<String> productIds, Set<String> deleted) {
+        return productIds == null ? 0 : productIds.stream().filter(deleted::contains).count();
+    }
+
+    private static class RunStats {
+        private long batches;
+        private long users;
+        private long danglingIds;
+        private long archivedCarts;
+
+        private long usersPerSecond(long startedAt) {
+            long elapsedMillis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+            return users * 1000 / elapsedMillis;
+        }
+    }
+}
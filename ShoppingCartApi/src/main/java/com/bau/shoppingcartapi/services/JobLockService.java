@@ -0,0 +1,91 @@
+package com.bau.shoppingcartapi.services;
+
+import com.bau.shoppingcartapi.entities.JobLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cluster-wide locks for scheduled jobs, so a job whose cron fires on every replica runs on one of them only.
+ *
+ * Each lock is a job_locks document with a lease (lockedUntil). Taking it is a single upsert that only matches
+ * an expired lease: if another instance holds it, the upsert tries to insert a second document with the same _id
+ * and fails with a duplicate key. Long jobs extend the lease as they make progress, and a crashed holder's lock
+ * frees itself when the lease runs out.
+ */
+@Slf4j
+@Service
+public class JobLockService {
+
+    // Kept after release so replicas whose cron fires a little later (clock skew) do not run the job again
+    static final Duration MIN_HOLD = Duration.ofMinutes(1);
+
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID();
+
+    private final Map<String, Instant> acquiredAt = new ConcurrentHashMap<>();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public boolean tryLock(String name, Duration lease) {
+        Instant now = Instant.now();
+        Query expired = new Query(Criteria.where("id").is(name).and("lockedUntil").lte(now));
+        Update take = new Update()
+                .set("lockedBy", owner)
+                .set("lockedAt", now)
+                .set("lockedUntil", now.plus(lease));
+        try {
+            mongoTemplate.upsert(expired, take, JobLock.class);
+        } catch (DuplicateKeyException e) {
+            return false;  // Held by another instance
+        }
+        acquiredAt.put(name, now);
+        return true;
+    }
+
+    // Pushes the lease forward; false means this instance no longer holds the lock and should stop
+    public boolean extend(String name, Duration lease) {
+        Update extend = new Update().set("lockedUntil", Instant.now().plus(lease));
+        return mongoTemplate.updateFirst(heldByMe(name), extend, JobLock.class).getModifiedCount() > 0;
+    }
+
+    public void unlock(String name) {
+        Instant now = Instant.now();
+        Instant acquired = acquiredAt.remove(name);
+        Instant releaseAt = acquired == null || acquired.plus(MIN_HOLD).isBefore(now) ? now : acquired.plus(MIN_HOLD);
+        try {
+            mongoTemplate.updateFirst(heldByMe(name), new Update().set("lockedUntil", releaseAt), JobLock.class);
+        } catch (DataAccessException e) {
+            log.warn("Could not release job lock {}, it frees itself when the lease ends: {}", name, e.getMessage());
+        }
+    }
+
+    // Records a finished run while still holding the lock; false if the lock was lost
+    public boolean markCompleted(String name, Instant startedAt) {
+        Update completed = new Update().set("lastCompletedAt", startedAt);
+        return mongoTemplate.updateFirst(heldByMe(name), completed, JobLock.class).getMatchedCount() > 0;
+    }
+
+    // Start of the last completed run, null if the job never completed
+    public Instant lastCompleted(String name) {
+        JobLock lock = mongoTemplate.findById(name, JobLock.class);
+        return lock == null ? null : lock.getLastCompletedAt();
+    }
+
+    private Query heldByMe(String name) {
+        return new Query(Criteria.where("id").is(name).and("lockedBy").is(owner));
+    }
+}
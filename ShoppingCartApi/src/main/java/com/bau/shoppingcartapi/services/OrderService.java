@@ -0,0 +1,145 @@
+package com.bau.shoppingcartapi.services;
+
+import com.bau.shoppingcartapi.config.MongoIndexConfig;
+import com.bau.shoppingcartapi.dto.CheckoutDto;
+import com.bau.shoppingcartapi.dto.OrderDto;
+import com.bau.shoppingcartapi.dto.OrderPageDto;
+import com.bau.shoppingcartapi.entities.Order;
+import com.bau.shoppingcartapi.entities.OrderItem;
+import com.bau.shoppingcartapi.entities.Product;
+import com.bau.shoppingcartapi.entities.User;
+import com.bau.shoppingcartapi.events.CartChangedEvent;
+import com.bau.shoppingcartapi.events.DomainEventBus;
+import com.bau.shoppingcartapi.repositories.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class OrderService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoTransactionManager transactionManager;
+
+    @Autowired
+    private DomainEventBus eventBus;
+
+    @Autowired
+    private MongoIndexConfig mongoIndexConfig;
+
+    /**
+     * Turns the user's cart into an order and empties the cart in one transaction.
+     * The number of Mongo round trips does not depend on cart size: empty the cart (returning its contents),
+     * one batched price lookup, insert the order, commit.
+     *
+     * Retries with the same idempotency key return the order that was already placed: the unique
+     * (userId, idempotencyKey) index makes the retry's insert fail, which rolls back its cart change too.
+     * Without that index a retry would place a second order, so checkout is refused (503) until it exists.
+     */
+    public OrderDto checkout(CheckoutDto checkout) {
+        if (!mongoIndexConfig.ensureIndexes(Order.class)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Orders indexes are not in place yet");
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            Order order = transactionTemplate.execute(status -> placeOrder(checkout.getUserId(), checkout.getIdempotencyKey()));
+            eventBus.publish(new CartChangedEvent(checkout.getUserId(), null, CartChangedEvent.ChangeType.CLEARED, new ArrayList<>(), null));
+            return toDto(order);
+        } catch (IllegalStateException | DataAccessException e) {
+            // Empty cart, duplicate key or write conflict: a previous attempt with this key may already have succeeded
+            return orderRepository.findByUserIdAndIdempotencyKey(checkout.getUserId(), checkout.getIdempotencyKey())
+                    .map(this::toDto)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    public OrderPageDto getOrderHistory(String userId, String before, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        PageRequest page = PageRequest.of(0, pageSize);
+        List<Order> orders = before == null || before.isBlank()
+                ? orderRepository.findByUserIdOrderByIdDesc(userId, page)
+                : orderRepository.findByUserIdAndIdLessThanOrderByIdDesc(userId, before, page);
+
+        String nextCursor = orders.size() == pageSize ? orders.get(orders.size() - 1).getId() : null;
+        return new OrderPageDto(orders.stream().map(this::toDto).collect(Collectors.toList()), nextCursor);
+    }
+
+    private Order placeOrder(String userId, String idempotencyKey) {
+        Instant now = Instant.now();
+
+        // Read and empty the cart in a single findAndModify
+        Query withItems = new Query(Criteria.where("id").is(userId).and("cart.0").exists(true));
+        withItems.fields().include("cart");
+        User user = mongoTemplate.findAndModify(withItems,
+                new Update().set("cart", new ArrayList<>()).set("cartUpdatedAt", now),
+                FindAndModifyOptions.options().returnNew(false), User.class);
+        if (user == null) {
+            throw new IllegalStateException("Cart is empty or user not found");
+        }
+
+        // Cart holds one entry per unit, keep the order in which products were first added
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        user.getCart().forEach(productId -> quantities.merge(productId, 1, Integer::sum));
+
+        Query products = new Query(Criteria.where("id").in(quantities.keySet()));
+        products.fields().include("name", "price");
+        Map<String, Product> productsById = mongoTemplate.find(products, Product.class).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<OrderItem> items = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            Product product = productsById.get(entry.getKey());
+            if (product == null || product.getPrice() == null) {
+                continue;  // Deleted product still referenced by the cart
+            }
+            items.add(new OrderItem(product.getId(), product.getName(), product.getPrice(), entry.getValue()));
+            total = total.add(BigDecimal.valueOf(product.getPrice()).multiply(BigDecimal.valueOf(entry.getValue())));
+        }
+        if (items.isEmpty()) {
+            throw new IllegalStateException("None of the products in the cart are available");
+        }
+
+        Order order = Order.builder()
+                .userId(userId)
+                .idempotencyKey(idempotencyKey)
+                .items(items)
+                .total(total.setScale(2, RoundingMode.HALF_UP).doubleValue())
+                .createdAt(now)
+                .build();
+        return mongoTemplate.insert(order);
+    }
+
+    private OrderDto toDto(Order order) {
+        return new OrderDto(order.getId(), order.getUserId(), order.getItems(), order.getTotal(), order.getCreatedAt());
+    }
+}
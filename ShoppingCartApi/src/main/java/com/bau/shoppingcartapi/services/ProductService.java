@@ -2,6 +2,10 @@ package com.bau.shoppingcartapi.services;
 
 import com.bau.shoppingcartapi.dto.ProductDto;
 import com.bau.shoppingcartapi.entities.Product;
+import com.bau.shoppingcartapi.events.DomainEventBus;
+import com.bau.shoppingcartapi.events.ProductCreatedEvent;
+import com.bau.shoppingcartapi.events.ProductDeletedEvent;
+import com.bau.shoppingcartapi.events.ProductUpdatedEvent;
 import com.bau.shoppingcartapi.repositories.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +22,9 @@ public class ProductService {
     
     @Autowired
     private ProductRepository productRepository;
+
+    @Autowired
+    private DomainEventBus eventBus;
     
 
         public List<ProductDto> getAllProducts() {
@@ -65,12 +72,15 @@ public class ProductService {
     }
     
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product createdProduct = productRepository.save(product);
+        eventBus.publish(new ProductCreatedEvent(createdProduct.getId()));
+        return createdProduct;
     }
     
     public Product updateProduct(String id, Product productDetails) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
+        Double oldPrice = product.getPrice();
         
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
@@ -78,10 +88,14 @@ public class ProductService {
         product.setImageUrl(productDetails.getImageUrl());
         product.setCategory(productDetails.getCategory());
         
-        return productRepository.save(product);
+        Product updatedProduct = productRepository.save(product);
+        eventBus.publish(new ProductUpdatedEvent(id, oldPrice, updatedProduct.getPrice()));
+        return updatedProduct;
     }
     
+    // Carts, favorites and recommendations are cleaned up asynchronously by the event handlers
     public void deleteProduct(String id) {
         productRepository.deleteById(id);
+        eventBus.publish(new ProductDeletedEvent(id));
     }
 }
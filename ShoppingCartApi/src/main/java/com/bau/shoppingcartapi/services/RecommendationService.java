@@ -0,0 +1,247 @@
+package com.bau.shoppingcartapi.services;
+
+import com.bau.shoppingcartapi.config.RecommendationProperties;
+import com.bau.shoppingcartapi.dto.RelatedProductsDto;
+import com.bau.shoppingcartapi.entities.ProductRecommendation;
+import com.bau.shoppingcartapi.entities.RelatedProduct;
+import com.bau.shoppingcartapi.entities.User;
+import com.bau.shoppingcartapi.events.BasketChangedEvent;
+import com.bau.shoppingcartapi.recommendations.CoOccurrenceIndex;
+import com.mongodb.ReadPreference;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * "Frequently added together" recommendations from cart and favorites co-occurrence.
+ *
+ * The CoOccurrenceIndex lives in memory and serves GET /api/products/{id}/related without touching Mongo.
+ * A user's basket is their cart and favorites together, both for the rebuild and for incremental updates.
+ * It is rebuilt from all users on recommendations.rebuild-cron, updated incrementally from cart and favorites
+ * additions (CartCoOccurrenceHandler).
+ *
+ * Only one replica runs the rebuild (the "recommendations-rebuild" job lock) and writes the result to
+ * product_recommendations as a new generation, stamped with its start time. Once every list is written it
+ * records that time as the lock's lastCompletedAt, and only then drops older generations (keeping the previous
+ * one for instances still loading it). The others, and any instance that restarts, load the completed
+ * generation: every recommendations.reload-interval they check for a newer one and swap it in, so an
+ * interrupted or still running rebuild is never half-loaded. Incremental updates stay
+ * local to the instance that handled the request until the next rebuild picks them up from the users collection,
+ * so replicas never overwrite each other's persisted lists.
+ */
+@Slf4j
+@Service
+public class RecommendationService {
+
+    private static final int PERSIST_CHUNK_SIZE = 500;
+
+    static final String LOCK_NAME = "recommendations-rebuild";
+
+    // Rebuild, persist and reload move whole collections (MongoConfig.backgroundMongoClient)
+    @Autowired
+    @Qualifier("backgroundMongoTemplate")
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RecommendationProperties properties;
+
+    @Autowired
+    private JobLockService jobLockService;
+
+    private volatile CoOccurrenceIndex index;
+
+    // Generation (rebuild start) the current index comes from
+    private volatile Instant indexBuiltAt = Instant.EPOCH;
+
+    @PostConstruct
+    void init() {
+        index = new CoOccurrenceIndex(properties.getTopK());
+    }
+
+    public RelatedProductsDto getRelatedProducts(String productId) {
+        return new RelatedProductsDto(productId, index.related(productId));
+    }
+
+    public void recordBasketAdditions(List<BasketChangedEvent> events) {
+        CoOccurrenceIndex current = index;
+        for (BasketChangedEvent event : events) {
+            if (event.changeType() != BasketChangedEvent.ChangeType.ADDED || event.productId() == null) {
+                continue;
+            }
+            // Product was already in the cart or favorites, its pairs were counted when it was first added
+            if (occurrences(event.cart(), event.productId()) + occurrences(event.favorites(), event.productId()) > 1) {
+                continue;
+            }
+            current.addToBasket(event.productId(), basket(event.cart(), event.favorites()));
+        }
+        current.refresh();
+    }
+
+    public void removeProducts(Collection<String> productIds) {
+        CoOccurrenceIndex current = index;
+        productIds.forEach(current::remove);
+        current.refresh();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        CompletableFuture.runAsync(() -> {
+            try {
+                Instant completed = jobLockService.lastCompleted(LOCK_NAME);
+                if (completed == null || !loadPersisted(completed)) {
+                    rebuild();
+                }
+            } catch (Exception e) {
+                log.warn("Could not load recommendations: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Builds a fresh index from every user's cart and favorites (one secondary-preferred cursor), swaps it in,
+     * and rewrites product_recommendations. Runs on the replica that gets the job lock; the others skip it.
+     */
+    @Scheduled(cron = "${recommendations.rebuild-cron}")
+    public void rebuild() {
+        if (!jobLockService.tryLock(LOCK_NAME, properties.getLockLease())) {
+            log.info("Recommendation rebuild is already running, skipping this run");
+            return;
+        }
+        try {
+            Instant startedAt = Instant.now();
+            CoOccurrenceIndex rebuilt = new CoOccurrenceIndex(properties.getTopK());
+            int batchSize = Math.max(1, properties.getBatchSize());
+
+            Query query = new Query(new Criteria().orOperator(
+                    Criteria.where("cart.1").exists(true),
+                    Criteria.where("favorites.1").exists(true),
+                    new Criteria().andOperator(
+                            Criteria.where("cart.0").exists(true),
+                            Criteria.where("favorites.0").exists(true))))
+                    .with(Sort.by(Sort.Direction.ASC, "id"))
+                    .cursorBatchSize(batchSize);
+            query.fields().include("cart", "favorites");
+            query.withReadPreference(ReadPreference.secondaryPreferred());
+
+            long users = 0;
+            try (Stream<User> stream = mongoTemplate.stream(query, User.class)) {
+                for (User user : (Iterable<User>) stream::iterator) {
+                    rebuilt.addBasket(basket(user.getCart(), user.getFavorites()));
+                    if (++users % batchSize == 0 && !jobLockService.extend(LOCK_NAME, properties.getLockLease())) {
+                        log.warn("Recommendation rebuild lost its job lock after {} users, stopping", users);
+                        return;
+                    }
+                }
+            }
+            rebuilt.refresh();
+            index = rebuilt;
+            indexBuiltAt = startedAt;
+
+            Instant previous = jobLockService.lastCompleted(LOCK_NAME);
+            if (!persist(rebuilt, startedAt) || !jobLockService.markCompleted(LOCK_NAME, startedAt)) {
+                log.warn("Recommendation rebuild lost its job lock while persisting, stopping");
+                return;
+            }
+            // Older generations and interrupted rebuilds; the previous generation stays for instances loading it
+            List<Instant> kept = previous == null ? List.of(startedAt) : List.of(startedAt, previous);
+            mongoTemplate.remove(new Query(Criteria.where("rebuiltAt").nin(kept)), ProductRecommendation.class);
+            log.info("Recommendations rebuilt from {} users, {} products indexed", users, rebuilt.size());
+        } finally {
+            jobLockService.unlock(LOCK_NAME);
+        }
+    }
+
+    // Picks up a rebuild that completed on another replica
+    @Scheduled(fixedDelayString = "${recommendations.reload-interval}", initialDelayString = "${recommendations.reload-interval}")
+    public void reloadIfRebuilt() {
+        Instant completed = jobLockService.lastCompleted(LOCK_NAME);
+        if (completed != null && completed.isAfter(indexBuiltAt)) {
+            loadPersisted(completed);
+        }
+    }
+
+    // Writes every product's top-K as generation rebuiltAt; false if the job lock was lost on the way
+    private boolean persist(CoOccurrenceIndex rebuilt, Instant rebuiltAt) {
+        List<String> products = rebuilt.drainChanged();
+        for (int from = 0; from < products.size(); from += PERSIST_CHUNK_SIZE) {
+            if (!jobLockService.extend(LOCK_NAME, properties.getLockLease())) {
+                return false;
+            }
+            List<ProductRecommendation> chunk = new ArrayList<>();
+            for (String productId : products.subList(from, Math.min(from + PERSIST_CHUNK_SIZE, products.size()))) {
+                List<RelatedProduct> related = rebuilt.relatedWithScores(productId).entrySet().stream()
+                        .map(entry -> new RelatedProduct(entry.getKey(), entry.getValue()))
+                        .collect(Collectors.toList());
+                chunk.add(ProductRecommendation.builder()
+                        .productId(productId)
+                        .related(related)
+                        .rebuiltAt(rebuiltAt)
+                        .build());
+            }
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductRecommendation.class)
+                    .insert(chunk)
+                    .execute();
+        }
+        return true;
+    }
+
+    // Seeds the index from product_recommendations; only top-K scores survive, the next rebuild restores full counts
+    private boolean loadPersisted(Instant rebuiltAt) {
+        CoOccurrenceIndex loaded = new CoOccurrenceIndex(properties.getTopK());
+        long products = 0;
+        Query generation = new Query(Criteria.where("rebuiltAt").is(rebuiltAt));
+        try (Stream<ProductRecommendation> stream = mongoTemplate.stream(generation, ProductRecommendation.class)) {
+            for (ProductRecommendation recommendation : (Iterable<ProductRecommendation>) stream::iterator) {
+                for (RelatedProduct related : recommendation.getRelated()) {
+                    loaded.seed(recommendation.getProductId(), related.getProductId(), related.getScore());
+                }
+                products++;
+            }
+        }
+        if (products == 0) {
+            return false;
+        }
+        loaded.refresh();
+        loaded.drainChanged();  // Already persisted
+        index = loaded;
+        indexBuiltAt = rebuiltAt;
+        log.info("Loaded recommendations for {} products", products);
+        return true;
+    }
+
+    private static int occurrences(List<String> productIds, String productId) {
+        return productIds == null ? 0 : Collections.frequency(productIds, productId);
+    }
+
+    private List<String> basket(List<String> cart, List<String> favorites) {
+        Set<String> basket = new LinkedHashSet<>();
+        if (cart != null) {
+            basket.addAll(cart);
+        }
+        if (favorites != null) {
+            basket.addAll(favorites);
+        }
+        return new ArrayList<>(basket).subList(0, Math.min(basket.size(), properties.getMaxBasketSize()));
+    }
+}
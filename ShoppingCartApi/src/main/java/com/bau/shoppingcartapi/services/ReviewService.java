@@ -6,6 +6,8 @@ import com.bau.shoppingcartapi.dto.ReviewDto;
 import com.bau.shoppingcartapi.entities.Product;
 import com.bau.shoppingcartapi.entities.Review;
 import com.bau.shoppingcartapi.entities.User;
+import com.bau.shoppingcartapi.events.DomainEventBus;
+import com.bau.shoppingcartapi.events.ReviewCreatedEvent;
 import com.bau.shoppingcartapi.repositories.ProductRepository;
 import com.bau.shoppingcartapi.repositories.ReviewRepository;
 import com.bau.shoppingcartapi.repositories.UserRepository;
@@ -24,6 +26,8 @@ public class ReviewService {
     private UserRepository userRepository;
     @Autowired
     private ProductRepository productRepository;
+    @Autowired
+    private DomainEventBus eventBus;
 
 
     public List<ReviewDto> getAllReviews() {
@@ -81,6 +85,8 @@ public class ReviewService {
 
         // Save review
         Review createdReview = reviewRepository.save(review);
+        // Product.reviews and User.reviews are updated by ReviewAggregateHandler
+        eventBus.publish(new ReviewCreatedEvent(createdReview.getId(), createdReview.getProductId(), createdReview.getUserId()));
 
         // Map to DTO
         ReviewDto responseDto = new ReviewDto();
@@ -3,17 +3,40 @@ package com.bau.shoppingcartapi.services;
 import com.bau.shoppingcartapi.dto.AddToCartOrFavDto;
 import com.bau.shoppingcartapi.dto.CreateUserDto;
 import com.bau.shoppingcartapi.dto.UserDto;
+import com.bau.shoppingcartapi.dto.UserPageDto;
+import com.bau.shoppingcartapi.dto.UserSummaryDto;
 import com.bau.shoppingcartapi.entities.Product;
 import com.bau.shoppingcartapi.entities.User;
+import com.bau.shoppingcartapi.events.BasketChangedEvent;
+import com.bau.shoppingcartapi.events.CartChangedEvent;
+import com.bau.shoppingcartapi.events.DomainEventBus;
+import com.bau.shoppingcartapi.events.FavoritesChangedEvent;
 import com.bau.shoppingcartapi.repositories.ProductRepository;
 import com.bau.shoppingcartapi.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
@@ -24,17 +47,123 @@ public class UserService {
     @Autowired
     private ProductRepository productRepository;
 
-    public List<UserDto> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(user -> {
-            UserDto userDto = new UserDto();
-            userDto.setId(user.getId());
-            userDto.setEmail(user.getEmail());
-            userDto.setCart(user.getCart());
-            userDto.setFavorites(user.getFavorites());
-            return userDto;
-        })
-                .collect(Collectors.toList());
+    @Autowired
+    private DomainEventBus eventBus;
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final char CURSOR_SEPARATOR = '\u0000';
+    private static final char EMAIL = 'e';
+    private static final char NULL_EMAIL = 'n';
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Admin listing: one page of users ordered by (email, id), optionally filtered by an email prefix.
+     * Only id, email and the sizes of cart/favorites leave the database, and both the prefix
+     * match and the "after" cursor are range scans on the users (email, _id) index.
+     * The id tie-break keeps users that share an email from being skipped at a page boundary.
+     */
+    public UserPageDto getUsersPage(String emailPrefix, String after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(emailCriteria(emailPrefix, after)),
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, "email", "id")),
+                Aggregation.limit(pageSize),
+                summaryProjection()
+        );
+        List<UserSummaryDto> users = mongoTemplate.aggregate(aggregation, User.class, UserSummaryDto.class)
+                .getMappedResults();
+
+        String nextCursor = null;
+        if (users.size() == pageSize) {
+            UserSummaryDto last = users.get(users.size() - 1);
+            nextCursor = encodeCursor(last.getEmail(), last.getId());
+        }
+        return new UserPageDto(users, nextCursor);
+    }
+
+    /**
+     * Streams every user summary as CSV straight from a Mongo cursor, so memory use does not
+     * grow with the size of the collection.
+     */
+    public void exportUsersCsv(Writer writer) throws IOException {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, "email", "id")),
+                summaryProjection()
+        );
+        writer.write("id,email,cartSize,favoritesSize\n");
+        try (Stream<UserSummaryDto> users = mongoTemplate.aggregateStream(aggregation, User.class, UserSummaryDto.class)) {
+            for (UserSummaryDto user : (Iterable<UserSummaryDto>) users::iterator) {
+                writer.write(csvField(user.getId()) + "," + csvField(user.getEmail()) + ","
+                        + user.getCartSize() + "," + user.getFavoritesSize() + "\n");
+            }
+        }
+        writer.flush();
+    }
+
+    static Criteria emailCriteria(String emailPrefix, String after) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (emailPrefix != null && !emailPrefix.isBlank()) {
+            // Anchored, case-sensitive regex of escaped literals so Mongo can turn it into an index bound
+            String literal = emailPrefix.replaceAll("([^A-Za-z0-9])", "\\\\$1");
+            criteria.add(Criteria.where("email").regex("^" + literal));
+        }
+        if (after != null && !after.isBlank()) {
+            String[] cursor = decodeCursor(after);
+            if (cursor[0] == null) {
+                // Users without an email sort first; after them come all users that have one
+                criteria.add(new Criteria().orOperator(
+                        Criteria.where("email").is(null).and("id").gt(cursor[1]),
+                        Criteria.where("email").ne(null)));
+            } else {
+                criteria.add(new Criteria().orOperator(
+                        Criteria.where("email").gt(cursor[0]),
+                        Criteria.where("email").is(cursor[0]).and("id").gt(cursor[1])));
+            }
+        }
+        return criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria);
+    }
+
+    private ProjectionOperation summaryProjection() {
+        return Aggregation.project("email")
+                .and(ArrayOperators.Size.lengthOfArray(
+                        ConditionalOperators.ifNull("cart").then(Collections.emptyList()))).as("cartSize")
+                .and(ArrayOperators.Size.lengthOfArray(
+                        ConditionalOperators.ifNull("favorites").then(Collections.emptyList()))).as("favoritesSize");
+    }
+
+    // Opaque "after" token: the (email, id) of the last user on the page.
+    // The email is prefixed with a marker so a missing email and the string "null" stay distinct.
+    static String encodeCursor(String email, String id) {
+        String key = (email == null ? String.valueOf(NULL_EMAIL) : EMAIL + email) + CURSOR_SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decodeCursor(String cursor) {
+        String key;
+        try {
+            key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        int separator = key.lastIndexOf(CURSOR_SEPARATOR);
+        if (separator < 1 || (key.charAt(0) != EMAIL && key.charAt(0) != NULL_EMAIL)) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        String email = key.charAt(0) == NULL_EMAIL ? null : key.substring(1, separator);
+        return new String[] {email, key.substring(separator + 1)};
+    }
+
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
     }
 
  public UserDto getUserById(String id) {
@@ -78,10 +207,9 @@ public class UserService {
 
 
     public UserDto addToCart(AddToCartOrFavDto addToCart) {
-        User user = userRepository.findById(addToCart.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.getCart().add(addToCart.getProductId());
-        userRepository.save(user);
+        User user = updateUser(addToCart.getUserId(),
+                new Update().push("cart", addToCart.getProductId()).set("cartUpdatedAt", Instant.now()));
+        publishCartChanged(user, addToCart.getProductId(), CartChangedEvent.ChangeType.ADDED);
 
         UserDto userDto = new UserDto();
         userDto.setId(user.getId());
@@ -93,10 +221,9 @@ public class UserService {
     }
 
     public UserDto removeFromCart(AddToCartOrFavDto rmCart) {
-        User user = userRepository.findById(rmCart.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.getCart().removeIf(product -> product.equals(rmCart.getProductId()));
-        userRepository.save(user);
+        User user = updateUser(rmCart.getUserId(),
+                new Update().pull("cart", rmCart.getProductId()).set("cartUpdatedAt", Instant.now()));
+        publishCartChanged(user, rmCart.getProductId(), CartChangedEvent.ChangeType.REMOVED);
 
         UserDto userDto = new UserDto();
         userDto.setId(user.getId());
@@ -110,10 +237,8 @@ public class UserService {
 
     // Favorites operations
     public UserDto addToFavorites(AddToCartOrFavDto addToFav) {
-        User user = userRepository.findById(addToFav.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.getFavorites().add(addToFav.getProductId());
-        userRepository.save(user);
+        User user = updateUser(addToFav.getUserId(), new Update().push("favorites", addToFav.getProductId()));
+        publishFavoritesChanged(user, addToFav.getProductId(), BasketChangedEvent.ChangeType.ADDED);
 
         UserDto userDto = new UserDto();
         userDto.setId(user.getId());
@@ -125,10 +250,8 @@ public class UserService {
     }
 
     public UserDto removeFromFavorites(AddToCartOrFavDto rmFav) {
-        User user = userRepository.findById(rmFav.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.getFavorites().removeIf(product -> product.equals(rmFav.getProductId()));
-        userRepository.save(user);
+        User user = updateUser(rmFav.getUserId(), new Update().pull("favorites", rmFav.getProductId()));
+        publishFavoritesChanged(user, rmFav.getProductId(), BasketChangedEvent.ChangeType.REMOVED);
 
         UserDto userDto = new UserDto();
         userDto.setId(user.getId());
@@ -140,10 +263,8 @@ public class UserService {
     }
 
     public UserDto clearCart(String userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.setCart(new ArrayList<>());
-        userRepository.save(user);
+        User user = updateUser(userId, new Update().set("cart", new ArrayList<>()).set("cartUpdatedAt", Instant.now()));
+        publishCartChanged(user, null, CartChangedEvent.ChangeType.CLEARED);
 
         UserDto userDto = new UserDto();
         userDto.setId(user.getId());
@@ -154,10 +275,8 @@ public class UserService {
         return userDto;
     }
     public UserDto clearFavorites(String userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.setFavorites(new ArrayList<>());
-        userRepository.save(user);
+        User user = updateUser(userId, new Update().set("favorites", new ArrayList<>()));
+        publishFavoritesChanged(user, null, BasketChangedEvent.ChangeType.CLEARED);
 
         UserDto userDto = new UserDto();
         userDto.setId(user.getId());
@@ -167,4 +286,29 @@ public class UserService {
 
         return userDto;
     }
+
+    // Cart and favorites change with single-document updates, never a read-modify-save of the whole user,
+    // so concurrent requests and the cart compaction job cannot overwrite each other's changes
+    private User updateUser(String userId, Update update) {
+        User user = mongoTemplate.findAndModify(new Query(Criteria.where("id").is(userId)), update,
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
+        return user;
+    }
+
+    private void publishCartChanged(User user, String productId, CartChangedEvent.ChangeType changeType) {
+        eventBus.publish(new CartChangedEvent(user.getId(), productId, changeType,
+                snapshot(user.getCart()), snapshot(user.getFavorites())));
+    }
+
+    private void publishFavoritesChanged(User user, String productId, BasketChangedEvent.ChangeType changeType) {
+        eventBus.publish(new FavoritesChangedEvent(user.getId(), productId, changeType,
+                snapshot(user.getCart()), snapshot(user.getFavorites())));
+    }
+
+    private static List<String> snapshot(List<String> productIds) {
+        return productIds == null ? new ArrayList<>() : new ArrayList<>(productIds);
+    }
 }
@@ -0,0 +1,179 @@
+package com.bau.shoppingcartapi.config;
+
+import com.mongodb.MongoSocketOpenException;
+import com.mongodb.MongoSocketReadException;
+import com.mongodb.MongoSocketReadTimeoutException;
+import com.mongodb.MongoSocketWriteTimeoutException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterConnectionMode;
+import com.mongodb.connection.ClusterDescription;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ClusterType;
+import com.mongodb.connection.ServerConnectionState;
+import com.mongodb.connection.ServerDescription;
+import com.mongodb.connection.ServerType;
+import com.mongodb.event.ClusterDescriptionChangedEvent;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MongoCircuitBreakerTest {
+
+    private static final ServerAddress SERVER = new ServerAddress("localhost", 27017);
+
+    private final MongoClientProperties properties = new MongoClientProperties();
+    private final MongoCircuitBreaker breaker = new MongoCircuitBreaker();
+
+    @BeforeEach
+    void setUp() {
+        properties.getCircuitBreaker().setFailureThreshold(3);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofMillis(200));
+        ReflectionTestUtils.setField(breaker, "properties", properties);
+    }
+
+    @Test
+    void opensAfterThresholdConsecutiveFailures() {
+        breaker.commandFailed(socketFailure());
+        breaker.commandFailed(socketFailure());
+        assertThat(breaker.isOpen()).isFalse();
+        assertThat(breaker.allowRequest()).isTrue();
+
+        breaker.commandFailed(socketFailure());
+
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(breaker.allowRequest()).isFalse();
+        assertThat(breaker.getRetryAfterSeconds()).isEqualTo(1);
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        breaker.commandFailed(socketFailure());
+        breaker.commandFailed(socketFailure());
+        breaker.commandSucceeded(mock(CommandSucceededEvent.class));
+        breaker.commandFailed(socketFailure());
+        breaker.commandFailed(socketFailure());
+
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    @Test
+    void countsAFailureSeenByTheDriverAndTheRequestOnce() {
+        properties.getCircuitBreaker().setFailureThreshold(2);
+        MongoSocketReadException failure = new MongoSocketReadException("connection reset", SERVER);
+
+        breaker.commandFailed(commandFailed(failure));
+        breaker.recordRequestFailure(new DataAccessResourceFailureException("read failed", failure));
+
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    @Test
+    void countsFailuresThatNeverReachedACommandFromTheRequest() {
+        breaker.recordRequestFailure(new DataAccessResourceFailureException("no server",
+                new MongoTimeoutException("Timed out while waiting for a server")));
+        breaker.recordRequestFailure(new MongoTimeoutException("Timed out while waiting for a connection"));
+        breaker.recordRequestFailure(new MongoSocketOpenException("connection refused", SERVER));
+
+        assertThat(breaker.isOpen()).isTrue();
+    }
+
+    @Test
+    void ignoresFailuresUnrelatedToConnectivity() {
+        for (int i = 0; i < 5; i++) {
+            breaker.recordRequestFailure(new DuplicateKeyException("duplicate key"));
+            breaker.commandFailed(commandFailed(new IllegalStateException("bad command")));
+        }
+
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    @Test
+    void ignoresCommandsThatOnlyHitTheSocketTimeout() {
+        for (int i = 0; i < 5; i++) {
+            breaker.commandFailed(commandFailed(new MongoSocketReadTimeoutException("Timeout while receiving message",
+                    SERVER, new SocketTimeoutException("Read timed out"))));
+            breaker.commandFailed(commandFailed(new MongoSocketWriteTimeoutException("Timeout while writing message",
+                    SERVER, new SocketTimeoutException("Write timed out"))));
+        }
+
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    @Test
+    void letsOneProbeThroughPerOpenDuration() throws InterruptedException {
+        trip();
+        assertThat(breaker.allowRequest()).isFalse();
+
+        Thread.sleep(250);
+
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.allowRequest()).isFalse();
+        assertThat(breaker.isOpen()).isTrue();
+    }
+
+    @Test
+    void successfulProbeClosesTheBreaker() {
+        trip();
+
+        breaker.commandSucceeded(mock(CommandSucceededEvent.class));
+
+        assertThat(breaker.isOpen()).isFalse();
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    @Test
+    void followsClusterReadability() {
+        ClusterDescription readable = cluster(ServerDescription.builder()
+                .address(SERVER).state(ServerConnectionState.CONNECTED).type(ServerType.STANDALONE).ok(true).build());
+        ClusterDescription unreachable = cluster(ServerDescription.builder()
+                .address(SERVER).state(ServerConnectionState.CONNECTING).build());
+
+        breaker.clusterDescriptionChanged(new ClusterDescriptionChangedEvent(new ClusterId(), unreachable, readable));
+        assertThat(breaker.isOpen()).isTrue();
+
+        breaker.clusterDescriptionChanged(new ClusterDescriptionChangedEvent(new ClusterId(), readable, unreachable));
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    @Test
+    void disabledBreakerLetsEverythingThrough() {
+        properties.getCircuitBreaker().setEnabled(false);
+        trip();
+
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    private void trip() {
+        for (int i = 0; i < 3; i++) {
+            breaker.commandFailed(socketFailure());
+        }
+        assertThat(breaker.isOpen()).isTrue();
+    }
+
+    private static CommandFailedEvent socketFailure() {
+        return commandFailed(new MongoSocketReadException("connection reset", SERVER));
+    }
+
+    private static CommandFailedEvent commandFailed(Throwable failure) {
+        CommandFailedEvent event = mock(CommandFailedEvent.class);
+        when(event.getThrowable()).thenReturn(failure);
+        return event;
+    }
+
+    private static ClusterDescription cluster(ServerDescription server) {
+        return new ClusterDescription(ClusterConnectionMode.SINGLE, ClusterType.STANDALONE, List.of(server));
+    }
+}
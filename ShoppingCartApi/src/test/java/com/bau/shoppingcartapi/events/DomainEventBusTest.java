@@ -0,0 +1,176 @@
+package com.bau.shoppingcartapi.events;
+
+import com.bau.shoppingcartapi.config.DomainEventProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class DomainEventBusTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DomainEventProperties properties = new DomainEventProperties();
+    private DomainEventBus bus;
+
+    @AfterEach
+    void stopBus() {
+        if (bus != null) {
+            ReflectionTestUtils.invokeMethod(bus, "stop");
+        }
+    }
+
+    @Test
+    void handsEventsToHandlersInBatchesOfAtMostBatchSize() {
+        properties.setBatchSize(10);
+        properties.setLinger(Duration.ofMillis(100));
+        RecordingHandler handler = new RecordingHandler();
+        start(handler);
+
+        List<DomainEvent> published = publish(25);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> handler.events().size() == 25);
+        assertThat(handler.batches).extracting(List::size).containsExactly(10, 10, 5);
+        assertThat(handler.events()).containsExactlyElementsOf(published);
+        assertThat(meterRegistry.counter("events.handled").count()).isEqualTo(25);
+    }
+
+    @Test
+    void lingerCollectsEventsPublishedShortlyAfterTheFirst() throws InterruptedException {
+        properties.setBatchSize(100);
+        properties.setLinger(Duration.ofMillis(500));
+        RecordingHandler handler = new RecordingHandler();
+        start(handler);
+
+        bus.publish(new ProductCreatedEvent("p1"));
+        Thread.sleep(50);
+        bus.publish(new ProductCreatedEvent("p2"));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> handler.events().size() == 2);
+        assertThat(handler.batches).hasSize(1);
+    }
+
+    @Test
+    void dropsAndCountsEventsWhenTheQueueStaysFull() throws InterruptedException {
+        properties.setQueueCapacity(2);
+        properties.setBatchSize(1);
+        properties.setLinger(Duration.ZERO);
+        properties.setPublishTimeout(Duration.ofMillis(10));
+        CountDownLatch handling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingHandler handler = new RecordingHandler() {
+            @Override
+            public void handle(List<DomainEvent> events) {
+                handling.countDown();
+                awaitQuietly(release);
+                super.handle(events);
+            }
+        };
+        start(handler);
+
+        bus.publish(new ProductCreatedEvent("p1"));
+        assertThat(handling.await(5, TimeUnit.SECONDS)).isTrue();
+        // The consumer is stuck on p1, so p2 and p3 fill the queue and p4 has nowhere to go
+        bus.publish(new ProductCreatedEvent("p2"));
+        bus.publish(new ProductCreatedEvent("p3"));
+        bus.publish(new ProductCreatedEvent("p4"));
+        assertThat(meterRegistry.counter("events.dropped").count()).isEqualTo(1);
+
+        release.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> handler.events().size() == 3);
+        assertThat(handler.events()).extracting(event -> ((ProductCreatedEvent) event).productId())
+                .containsExactly("p1", "p2", "p3");
+    }
+
+    @Test
+    void stopHandlesEverythingAlreadyQueued() {
+        properties.setBatchSize(10);
+        properties.setLinger(Duration.ZERO);
+        RecordingHandler handler = new RecordingHandler() {
+            @Override
+            public void handle(List<DomainEvent> events) {
+                sleepQuietly(20);
+                super.handle(events);
+            }
+        };
+        start(handler);
+
+        publish(50);
+        ReflectionTestUtils.invokeMethod(bus, "stop");
+        bus = null;
+
+        assertThat(handler.events()).hasSize(50);
+    }
+
+    @Test
+    void failingHandlerDoesNotKeepEventsFromTheOthers() {
+        properties.setLinger(Duration.ZERO);
+        DomainEventHandler failing = events -> {
+            throw new IllegalStateException("boom");
+        };
+        RecordingHandler handler = new RecordingHandler();
+        start(failing, handler);
+
+        publish(3);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> handler.events().size() == 3);
+        assertThat(meterRegistry.find("events.handler.failures").counter()).isNotNull();
+    }
+
+    private void start(DomainEventHandler... handlers) {
+        bus = new DomainEventBus();
+        ReflectionTestUtils.setField(bus, "properties", properties);
+        ReflectionTestUtils.setField(bus, "handlers", List.of(handlers));
+        ReflectionTestUtils.setField(bus, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(bus, "start");
+    }
+
+    private List<DomainEvent> publish(int count) {
+        List<DomainEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DomainEvent event = new ProductCreatedEvent("p" + i);
+            bus.publish(event);
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingHandler implements DomainEventHandler {
+
+        final List<List<DomainEvent>> batches = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void handle(List<DomainEvent> events) {
+            batches.add(events);
+        }
+
+        List<DomainEvent> events() {
+            return batches.stream().flatMap(List::stream).toList();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.bau.shoppingcartapi.recommendations;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class CoOccurrenceIndexTest {
+
+    @Test
+    void countsEachDistinctPairOncePerBasket() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(10);
+        index.addBasket(List.of("a", "b", "b", "c"));
+        index.addBasket(List.of("a", "b"));
+        index.refresh();
+
+        assertThat(index.relatedWithScores("a")).containsExactly(entry("b", 2), entry("c", 1));
+        assertThat(index.relatedWithScores("b")).containsExactly(entry("a", 2), entry("c", 1));
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void keepsTheTopKByCountBestFirst() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(2);
+        index.addBasket(List.of("a", "b", "c", "d"));
+        index.addBasket(List.of("a", "b", "c"));
+        index.addBasket(List.of("a", "b"));
+        index.refresh();
+
+        assertThat(index.related("a")).containsExactly("b", "c");
+        assertThat(index.relatedWithScores("a")).containsExactly(entry("b", 3), entry("c", 2));
+    }
+
+    @Test
+    void tiesGoToTheProductIndexedLater() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(10);
+        index.addBasket(List.of("a", "b"));
+        index.addBasket(List.of("a", "c"));
+        index.refresh();
+
+        assertThat(index.related("a")).containsExactly("c", "b");
+    }
+
+    @Test
+    void readsOnlySeeWritesAfterRefresh() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(10);
+        index.addBasket(List.of("a", "b"));
+
+        assertThat(index.related("a")).isEmpty();
+        index.refresh();
+        assertThat(index.related("a")).containsExactly("b");
+    }
+
+    @Test
+    void addToBasketOnlyCountsPairsWithTheAddedProduct() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(10);
+        index.addToBasket("e", List.of("a", "b", "e"));
+        index.refresh();
+
+        assertThat(index.related("e")).containsExactlyInAnyOrder("a", "b");
+        assertThat(index.related("a")).containsExactly("e");
+        assertThat(index.related("b")).containsExactly("e");
+    }
+
+    @Test
+    void removeDropsTheProductAndRecomputesItsNeighbours() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(2);
+        index.addBasket(List.of("a", "b", "c", "d"));
+        index.addBasket(List.of("a", "b", "c"));
+        index.addBasket(List.of("a", "b"));
+        index.refresh();
+        index.drainChanged();
+
+        index.remove("b");
+        index.refresh();
+
+        assertThat(index.related("b")).isEmpty();
+        assertThat(index.relatedWithScores("a")).containsExactly(entry("c", 2), entry("d", 1));
+        assertThat(index.related("c")).doesNotContain("b");
+        assertThat(index.drainChanged()).containsExactlyInAnyOrder("a", "b", "c", "d");
+    }
+
+    @Test
+    void seedKeepsTheHigherScoreInBothDirections() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(10);
+        index.seed("a", "b", 5);
+        index.seed("b", "a", 3);
+        index.seed("a", "a", 9);
+        index.refresh();
+
+        assertThat(index.relatedWithScores("a")).containsExactly(entry("b", 5));
+        assertThat(index.relatedWithScores("b")).containsExactly(entry("a", 5));
+
+        index.addBasket(List.of("a", "b"));
+        index.refresh();
+        assertThat(index.relatedWithScores("a")).containsExactly(entry("b", 6));
+    }
+
+    @Test
+    void drainChangedReportsRecomputedProductsOnce() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(10);
+        index.addBasket(List.of("a", "b"));
+        index.addBasket(List.of("c", "d"));
+        index.refresh();
+
+        assertThat(index.drainChanged()).containsExactly("a", "b", "c", "d");
+        assertThat(index.drainChanged()).isEmpty();
+
+        index.addToBasket("c", List.of("a", "c"));
+        assertThat(index.drainChanged()).isEmpty();  // Not refreshed yet
+        index.refresh();
+        assertThat(index.drainChanged()).containsExactly("a", "c");
+    }
+
+    @Test
+    void unknownProductHasNoRelatedProducts() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(10);
+
+        assertThat(index.related("missing")).isEmpty();
+        assertThat(index.relatedWithScores("missing")).isEmpty();
+        index.remove("missing");
+        assertThat(index.size()).isZero();
+    }
+
+    // Not a unit test: mvn test -Dtest=CoOccurrenceIndexTest -Drecommendations.benchmark=true
+    @Test
+    @EnabledIfSystemProperty(named = "recommendations.benchmark", matches = "true")
+    void lookupLatency() {
+        Random random = new Random(42);
+        int products = 50_000;
+        CoOccurrenceIndex index = new CoOccurrenceIndex(10);
+        for (int basket = 0; basket < 200_000; basket++) {
+            List<String> items = new ArrayList<>();
+            for (int i = 0, size = 2 + random.nextInt(8); i < size; i++) {
+                items.add("p" + random.nextInt(products));
+            }
+            index.addBasket(items);
+        }
+        index.refresh();
+
+        int lookups = 2_000_000;
+        long found = 0;
+        for (int round = 0; round < 2; round++) {  // First round warms up the JIT
+            long startedAt = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                found += index.related("p" + random.nextInt(products)).size();
+            }
+            long elapsed = System.nanoTime() - startedAt;
+            System.out.printf("%d products, %d lookups: %.0f ns per related() call%n",
+                    index.size(), lookups, (double) elapsed / lookups);
+        }
+        assertThat(found).isPositive();
+    }
+}
@@ -0,0 +1,92 @@
+package com.bau.shoppingcartapi.recommendations;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntIntCounterTest {
+
+    @Test
+    void addAccumulatesPerKeyAndMissingKeysReadZero() {
+        IntIntCounter counter = new IntIntCounter();
+        counter.add(7, 1);
+        counter.add(7, 2);
+        counter.add(0, 5);
+
+        assertThat(counter.get(7)).isEqualTo(3);
+        assertThat(counter.get(0)).isEqualTo(5);
+        assertThat(counter.get(42)).isZero();
+        assertThat(counter.size()).isEqualTo(2);
+    }
+
+    @Test
+    void keysThatHashToTheSameSlotAreKeptApart() {
+        // Same hash as IntIntCounter.slot for the 8 slots of a default-sized counter
+        int first = 1;
+        int second = first + 1;
+        while (slotOf(second, 7) != slotOf(first, 7)) {
+            second++;
+        }
+        IntIntCounter counter = new IntIntCounter();
+        counter.add(first, 1);
+        counter.add(second, 10);
+        counter.add(second, 10);
+
+        assertThat(counter.get(first)).isEqualTo(1);
+        assertThat(counter.get(second)).isEqualTo(20);
+        assertThat(counter.size()).isEqualTo(2);
+    }
+
+    @Test
+    void growsWithoutLosingEntries() {
+        IntIntCounter counter = new IntIntCounter();
+        for (int key = 0; key < 10_000; key++) {
+            counter.add(key, key + 1);
+        }
+        for (int key = 0; key < 10_000; key += 2) {
+            counter.add(key, 1);
+        }
+
+        assertThat(counter.size()).isEqualTo(10_000);
+        for (int key = 0; key < 10_000; key++) {
+            assertThat(counter.get(key)).isEqualTo(key % 2 == 0 ? key + 2 : key + 1);
+        }
+    }
+
+    @Test
+    void maxOnlyRaisesTheValue() {
+        IntIntCounter counter = new IntIntCounter();
+        counter.max(3, 5);
+        counter.max(3, 2);
+        counter.max(4, 0);
+
+        assertThat(counter.get(3)).isEqualTo(5);
+        counter.max(3, 9);
+        assertThat(counter.get(3)).isEqualTo(9);
+        assertThat(counter.size()).isEqualTo(1);
+    }
+
+    @Test
+    void forEachVisitsEveryEntryOnce() {
+        IntIntCounter counter = new IntIntCounter(2);
+        for (int key = 0; key < 100; key++) {
+            counter.add(key * 31, key);
+        }
+
+        Map<Integer, Integer> visited = new HashMap<>();
+        counter.forEach((key, value) -> assertThat(visited.put(key, value)).isNull());
+
+        assertThat(visited).hasSize(100);
+        for (int key = 0; key < 100; key++) {
+            assertThat(visited).containsEntry(key * 31, key);
+        }
+    }
+
+    private static int slotOf(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & mask;
+    }
+}
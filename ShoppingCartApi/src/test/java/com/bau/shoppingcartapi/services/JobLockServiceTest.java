@@ -0,0 +1,148 @@
+package com.bau.shoppingcartapi.services;
+
+import com.bau.shoppingcartapi.entities.JobLock;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JobLockServiceTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(10);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private JobLockService jobLockService;
+
+    private final ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    private final ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+
+    @Test
+    void tryLockTakesAnExpiredOrMissingLease() {
+        Instant before = Instant.now();
+
+        assertThat(jobLockService.tryLock("job", LEASE)).isTrue();
+
+        verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(JobLock.class));
+        Document filter = query.getValue().getQueryObject();
+        assertThat(filter.get("id")).isEqualTo("job");
+        Instant now = (Instant) filter.get("lockedUntil", Document.class).get("$lte");
+        assertThat(now).isBetween(before, Instant.now());
+        Document set = set(update.getValue());
+        assertThat(set.get("lockedUntil")).isEqualTo(now.plus(LEASE));
+        assertThat(set.getString("lockedBy")).isNotBlank();
+    }
+
+    @Test
+    void tryLockFailsWhileAnotherInstanceHoldsTheLease() {
+        // The upsert only matches an expired lease, so a held one makes it insert a duplicate _id
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(JobLock.class)))
+                .thenThrow(new DuplicateKeyException("job_locks _id"));
+
+        assertThat(jobLockService.tryLock("job", LEASE)).isFalse();
+    }
+
+    @Test
+    void extendOnlyMovesALeaseThisInstanceHolds() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(JobLock.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null), UpdateResult.acknowledged(0, 0L, null));
+
+        assertThat(jobLockService.extend("job", LEASE)).isTrue();
+        assertThat(jobLockService.extend("job", LEASE)).isFalse();
+
+        verify(mongoTemplate, times(2)).updateFirst(query.capture(), update.capture(), eq(JobLock.class));
+        Document filter = query.getValue().getQueryObject();
+        assertThat(filter.get("id")).isEqualTo("job");
+        assertThat(filter.getString("lockedBy")).isEqualTo(owner());
+        assertThat((Instant) set(update.getValue()).get("lockedUntil"))
+                .isCloseTo(Instant.now().plus(LEASE), within(5, ChronoUnit.SECONDS));
+    }
+
+    @Test
+    void unlockHoldsTheLockForAtLeastMinHoldAfterItWasTaken() {
+        jobLockService.tryLock("job", LEASE);
+
+        jobLockService.unlock("job");
+
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(JobLock.class));
+        assertThat(query.getValue().getQueryObject().getString("lockedBy")).isEqualTo(owner());
+        assertThat((Instant) set(update.getValue()).get("lockedUntil"))
+                .isCloseTo(Instant.now().plus(JobLockService.MIN_HOLD), within(5, ChronoUnit.SECONDS));
+    }
+
+    @Test
+    void unlockWithoutALocalAcquisitionReleasesRightAway() {
+        Instant before = Instant.now();
+
+        jobLockService.unlock("job");
+
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(JobLock.class));
+        assertThat((Instant) set(update.getValue()).get("lockedUntil")).isBetween(before, Instant.now());
+    }
+
+    @Test
+    void unlockFailureIsLeftToTheLeaseToClear() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(JobLock.class)))
+                .thenThrow(new DataAccessResourceFailureException("unreachable"));
+
+        jobLockService.unlock("job");
+    }
+
+    @Test
+    void markCompletedOnlyWhileHoldingTheLock() {
+        Instant startedAt = Instant.parse("2026-10-19T02:00:00Z");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(JobLock.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null), UpdateResult.acknowledged(0, 0L, null));
+
+        assertThat(jobLockService.markCompleted("job", startedAt)).isTrue();
+        assertThat(jobLockService.markCompleted("job", startedAt)).isFalse();
+
+        verify(mongoTemplate, times(2)).updateFirst(query.capture(), update.capture(), eq(JobLock.class));
+        assertThat(query.getValue().getQueryObject().getString("lockedBy")).isEqualTo(owner());
+        assertThat(set(update.getValue()).get("lastCompletedAt")).isEqualTo(startedAt);
+    }
+
+    @Test
+    void lastCompletedIsNullUntilARunCompletes() {
+        Instant startedAt = Instant.parse("2026-10-19T02:00:00Z");
+        when(mongoTemplate.findById("job", JobLock.class))
+                .thenReturn(null, JobLock.builder().id("job").build(), JobLock.builder().id("job").lastCompletedAt(startedAt).build());
+
+        assertThat(jobLockService.lastCompleted("job")).isNull();
+        assertThat(jobLockService.lastCompleted("job")).isNull();
+        assertThat(jobLockService.lastCompleted("job")).isEqualTo(startedAt);
+    }
+
+    private String owner() {
+        return (String) ReflectionTestUtils.getField(jobLockService, "owner");
+    }
+
+    private static Document set(Update update) {
+        return update.getUpdateObject().get("$set", Document.class);
+    }
+}
@@ -0,0 +1,175 @@
+package com.bau.shoppingcartapi.services;
+
+import com.bau.shoppingcartapi.config.MongoIndexConfig;
+import com.bau.shoppingcartapi.dto.CheckoutDto;
+import com.bau.shoppingcartapi.dto.OrderDto;
+import com.bau.shoppingcartapi.entities.Order;
+import com.bau.shoppingcartapi.entities.OrderItem;
+import com.bau.shoppingcartapi.entities.Product;
+import com.bau.shoppingcartapi.entities.User;
+import com.bau.shoppingcartapi.events.CartChangedEvent;
+import com.bau.shoppingcartapi.events.DomainEvent;
+import com.bau.shoppingcartapi.events.DomainEventBus;
+import com.bau.shoppingcartapi.repositories.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceTest {
+
+    private static final CheckoutDto CHECKOUT = new CheckoutDto("u1", "key-1");
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoTransactionManager transactionManager;
+
+    @Mock
+    private DomainEventBus eventBus;
+
+    @Mock
+    private MongoIndexConfig mongoIndexConfig;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    @Test
+    void placesOrderFromCartAtCurrentPrices() {
+        when(mongoIndexConfig.ensureIndexes(Order.class)).thenReturn(true);
+        givenCart("p1", "p2", "p1");
+        givenProducts(product("p1", 10.0), product("p2", 2.5));
+        when(mongoTemplate.insert(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId("o1");
+            return order;
+        });
+
+        OrderDto order = orderService.checkout(CHECKOUT);
+
+        assertThat(order.getId()).isEqualTo("o1");
+        assertThat(order.getItems()).extracting(OrderItem::getProductId, OrderItem::getQuantity)
+                .containsExactly(tuple("p1", 2), tuple("p2", 1));
+        assertThat(order.getTotal()).isEqualTo(22.5);
+        verify(transactionManager).commit(any());
+        ArgumentCaptor<DomainEvent> event = ArgumentCaptor.forClass(DomainEvent.class);
+        verify(eventBus).publish(event.capture());
+        assertThat(((CartChangedEvent) event.getValue()).changeType()).isEqualTo(CartChangedEvent.ChangeType.CLEARED);
+    }
+
+    @Test
+    void retryAfterTheOrderWasPlacedReturnsThatOrder() {
+        when(mongoIndexConfig.ensureIndexes(Order.class)).thenReturn(true);
+        // The first attempt committed, so the cart is already empty
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(User.class)))
+                .thenReturn(null);
+        Order placed = placedOrder();
+        when(orderRepository.findByUserIdAndIdempotencyKey("u1", "key-1")).thenReturn(Optional.of(placed));
+
+        OrderDto order = orderService.checkout(CHECKOUT);
+
+        assertThat(order.getId()).isEqualTo(placed.getId());
+        verify(mongoTemplate, never()).insert(any(Order.class));
+        verify(transactionManager).rollback(any());
+        verifyNoInteractions(eventBus);
+    }
+
+    @Test
+    void concurrentRetryLosingOnTheUniqueIndexReturnsTheWinningOrder() {
+        when(mongoIndexConfig.ensureIndexes(Order.class)).thenReturn(true);
+        // Both attempts read the cart before either committed; the second insert hits the unique index
+        givenCart("p1");
+        givenProducts(product("p1", 10.0));
+        when(mongoTemplate.insert(any(Order.class))).thenThrow(new DuplicateKeyException("user_idempotency_key"));
+        Order placed = placedOrder();
+        when(orderRepository.findByUserIdAndIdempotencyKey("u1", "key-1")).thenReturn(Optional.of(placed));
+
+        OrderDto order = orderService.checkout(CHECKOUT);
+
+        assertThat(order.getId()).isEqualTo(placed.getId());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verifyNoInteractions(eventBus);
+    }
+
+    @Test
+    void emptyCartWithoutAnEarlierOrderIsAnError() {
+        when(mongoIndexConfig.ensureIndexes(Order.class)).thenReturn(true);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(User.class)))
+                .thenReturn(null);
+        when(orderRepository.findByUserIdAndIdempotencyKey("u1", "key-1")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> orderService.checkout(CHECKOUT)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void refusesCheckoutUntilTheOrdersIndexesExist() {
+        when(mongoIndexConfig.ensureIndexes(Order.class)).thenReturn(false);
+
+        assertThatThrownBy(() -> orderService.checkout(CHECKOUT))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        verifyNoInteractions(mongoTemplate, transactionManager, orderRepository);
+    }
+
+    private void givenCart(String... productIds) {
+        User user = new User();
+        user.setId("u1");
+        user.setCart(new ArrayList<>(List.of(productIds)));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(User.class)))
+                .thenReturn(user);
+    }
+
+    private void givenProducts(Product... products) {
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of(products));
+    }
+
+    private static Product product(String id, double price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(price);
+        return product;
+    }
+
+    private static Order placedOrder() {
+        return Order.builder()
+                .id("o1")
+                .userId("u1")
+                .idempotencyKey("key-1")
+                .items(List.of(new OrderItem("p1", "Product p1", 10.0, 1)))
+                .total(10.0)
+                .createdAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.bau.shoppingcartapi.services;
+
+import com.bau.shoppingcartapi.config.RecommendationProperties;
+import com.bau.shoppingcartapi.entities.ProductRecommendation;
+import com.bau.shoppingcartapi.entities.RelatedProduct;
+import com.bau.shoppingcartapi.events.BasketChangedEvent;
+import com.bau.shoppingcartapi.events.CartChangedEvent;
+import com.bau.shoppingcartapi.events.FavoritesChangedEvent;
+import com.bau.shoppingcartapi.recommendations.CoOccurrenceIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RecommendationServiceTest {
+
+    private static final Instant REBUILT_AT = Instant.parse("2026-10-19T02:00:00Z");
+
+    private final RecommendationService recommendationService = new RecommendationService();
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final JobLockService jobLockService = mock(JobLockService.class);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(recommendationService, "properties", new RecommendationProperties());
+        ReflectionTestUtils.setField(recommendationService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(recommendationService, "jobLockService", jobLockService);
+        ReflectionTestUtils.invokeMethod(recommendationService, "init");
+    }
+
+    @Test
+    void additionsPairWithTheWholeBasketLikeTheRebuild() {
+        record(new CartChangedEvent("u1", "c2", BasketChangedEvent.ChangeType.ADDED, List.of("c1", "c2"), List.of("f1")));
+        record(new FavoritesChangedEvent("u1", "f2", BasketChangedEvent.ChangeType.ADDED, List.of("c1", "c2"), List.of("f1", "f2")));
+
+        assertThat(related("c2")).containsExactlyInAnyOrder("c1", "f1", "f2");
+        assertThat(related("f2")).containsExactlyInAnyOrder("c1", "c2", "f1");
+        assertThat(related("f1")).containsExactlyInAnyOrder("c2", "f2");
+    }
+
+    @Test
+    void productAlreadyInTheBasketIsNotCountedAgain() {
+        record(new FavoritesChangedEvent("u1", "p1", BasketChangedEvent.ChangeType.ADDED, List.of("p2"), List.of("p1")));
+        // Adding a favorite to the cart as well does not make a new pair
+        record(new CartChangedEvent("u1", "p1", BasketChangedEvent.ChangeType.ADDED, List.of("p2", "p1"), List.of("p1")));
+
+        CoOccurrenceIndex index = (CoOccurrenceIndex) ReflectionTestUtils.getField(recommendationService, "index");
+        assertThat(index.relatedWithScores("p1")).containsExactly(entry("p2", 1));
+    }
+
+    @Test
+    void removalsAndClearsDoNotCount() {
+        record(new CartChangedEvent("u1", "p1", BasketChangedEvent.ChangeType.REMOVED, List.of("p2"), List.of()));
+        record(new FavoritesChangedEvent("u1", null, BasketChangedEvent.ChangeType.CLEARED, List.of("p2"), List.of()));
+        record(new CartChangedEvent("u1", null, BasketChangedEvent.ChangeType.CLEARED, List.of(), null));
+
+        assertThat(related("p2")).isEmpty();
+    }
+
+    @Test
+    void reloadIgnoresRebuildsThatHaveNotCompleted() {
+        // Lists of a running or interrupted rebuild may already be in product_recommendations
+        when(jobLockService.lastCompleted(RecommendationService.LOCK_NAME)).thenReturn(null);
+
+        recommendationService.reloadIfRebuilt();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void reloadLoadsOnlyTheCompletedGenerationOnce() {
+        when(jobLockService.lastCompleted(RecommendationService.LOCK_NAME)).thenReturn(REBUILT_AT);
+        when(mongoTemplate.stream(any(Query.class), eq(ProductRecommendation.class)))
+                .thenAnswer(invocation -> Stream.of(recommendation("p1", "p2"), recommendation("p2", "p1")));
+
+        recommendationService.reloadIfRebuilt();
+        recommendationService.reloadIfRebuilt();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(ProductRecommendation.class));
+        assertThat(query.getValue().getQueryObject().get("rebuiltAt")).isEqualTo(REBUILT_AT);
+        assertThat(related("p1")).containsExactly("p2");
+        assertThat(related("p2")).containsExactly("p1");
+    }
+
+    private static ProductRecommendation recommendation(String productId, String relatedId) {
+        return ProductRecommendation.builder()
+                .productId(productId)
+                .related(List.of(new RelatedProduct(relatedId, 3)))
+                .rebuiltAt(REBUILT_AT)
+                .build();
+    }
+
+    private void record(BasketChangedEvent event) {
+        recommendationService.recordBasketAdditions(List.of(event));
+    }
+
+    private List<String> related(String productId) {
+        return recommendationService.getRelatedProducts(productId).getRelatedProductIds();
+    }
+}
@@ -0,0 +1,73 @@
+package com.bau.shoppingcartapi.services;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserServiceTest {
+
+    @Test
+    void cursorRoundTripsEmailAndId() {
+        String cursor = UserService.encodeCursor("a,b@example.com", "u1");
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+        assertThat(UserService.decodeCursor(cursor)).containsExactly("a,b@example.com", "u1");
+    }
+
+    @Test
+    void cursorKeepsAMissingEmailApartFromTheStringNull() {
+        assertThat(UserService.decodeCursor(UserService.encodeCursor(null, "u1"))).containsExactly(null, "u1");
+        assertThat(UserService.decodeCursor(UserService.encodeCursor("null", "u1"))).containsExactly("null", "u1");
+        assertThat(UserService.decodeCursor(UserService.encodeCursor("", "u1"))).containsExactly("", "u1");
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> UserService.decodeCursor("not base64!")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> UserService.decodeCursor("bm8tc2VwYXJhdG9y")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void prefixIsAnAnchoredRegexOfEscapedLiterals() {
+        Document criteria = UserService.emailCriteria("a.b+c@x", null).getCriteriaObject();
+
+        List<?> and = criteria.getList("$and", Object.class);
+        Object regex = ((Document) and.get(0)).get("email");
+        assertThat(regex.toString()).isEqualTo("^a\\.b\\+c\\@x");
+    }
+
+    @Test
+    void afterCursorContinuesOnEmailThenId() {
+        Document criteria = UserService.emailCriteria(null, UserService.encodeCursor("b@x", "u7")).getCriteriaObject();
+
+        assertThat(criteria.toJson()).isEqualTo(
+                "{\"$and\": [{\"$or\": [{\"email\": {\"$gt\": \"b@x\"}}, {\"email\": \"b@x\", \"id\": {\"$gt\": \"u7\"}}]}]}");
+    }
+
+    @Test
+    void afterCursorWithoutEmailContinuesWithTheRestOfTheNullsThenEveryEmail() {
+        Document criteria = UserService.emailCriteria(null, UserService.encodeCursor(null, "u7")).getCriteriaObject();
+
+        assertThat(criteria.toJson()).isEqualTo(
+                "{\"$and\": [{\"$or\": [{\"email\": null, \"id\": {\"$gt\": \"u7\"}}, {\"email\": {\"$ne\": null}}]}]}");
+    }
+
+    @Test
+    void noFiltersMatchEverything() {
+        assertThat(UserService.emailCriteria(" ", null).getCriteriaObject()).isEmpty();
+    }
+
+    @Test
+    void csvFieldQuotesOnlyWhenNeeded() {
+        assertThat(UserService.csvField(null)).isEmpty();
+        assertThat(UserService.csvField("plain@example.com")).isEqualTo("plain@example.com");
+        assertThat(UserService.csvField("a,b")).isEqualTo("\"a,b\"");
+        assertThat(UserService.csvField("say \"hi\"")).isEqualTo("\"say \"\"hi\"\"\"");
+        assertThat(UserService.csvField("line\nbreak")).isEqualTo("\"line\nbreak\"");
+        assertThat(UserService.csvField("carriage\rreturn")).isEqualTo("\"carriage\rreturn\"");
+    }
+}